@@ -1,5 +1,6 @@
 package com.fieldforcepro.config;
 
+import com.fieldforcepro.service.UploadPaths;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -7,11 +8,16 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
 
+    private final UploadPaths uploadPaths;
+
+    public StaticResourceConfig(UploadPaths uploadPaths) {
+        this.uploadPaths = uploadPaths;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String uploadsPath = System.getProperty("user.dir") + "/uploads/";
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadsPath)
+        registry.addResourceHandler(UploadPaths.URL_PREFIX + "**")
+                .addResourceLocations(uploadPaths.root().toUri().toString())
                 .setCachePeriod(0);
     }
 }
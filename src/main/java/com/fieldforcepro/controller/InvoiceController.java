@@ -1,80 +1,195 @@
 package com.fieldforcepro.controller;
 
 import com.fieldforcepro.model.Invoice;
-import com.fieldforcepro.model.InvoiceAudit;
-import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.service.IdempotencyStore;
+import com.fieldforcepro.service.InvoiceBulkStatusService;
+import com.fieldforcepro.service.InvoicePdfExporter;
+import com.fieldforcepro.service.InvoicePdfRenderer;
 import com.fieldforcepro.service.InvoiceService;
+import com.fieldforcepro.service.ReceivablesAgingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/invoices")
 @Tag(name = "Invoices")
 public class InvoiceController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final InvoiceService invoiceService;
+    private final InvoicePdfRenderer pdfRenderer;
+    private final InvoicePdfExporter pdfExporter;
+    private final IdempotencyStore idempotencyStore;
+    private final ReceivablesAgingService receivablesAging;
+    private final InvoiceBulkStatusService bulkStatusService;
+    private final Duration pdfRenderTimeout;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService,
+                             InvoicePdfRenderer pdfRenderer,
+                             InvoicePdfExporter pdfExporter,
+                             IdempotencyStore idempotencyStore,
+                             ReceivablesAgingService receivablesAging,
+                             InvoiceBulkStatusService bulkStatusService,
+                             @Value("${fieldforcepro.invoices.pdf.render-timeout:30s}") Duration pdfRenderTimeout) {
         this.invoiceService = invoiceService;
+        this.pdfRenderer = pdfRenderer;
+        this.pdfExporter = pdfExporter;
+        this.idempotencyStore = idempotencyStore;
+        this.receivablesAging = receivablesAging;
+        this.bulkStatusService = bulkStatusService;
+        this.pdfRenderTimeout = pdfRenderTimeout;
     }
 
     @PostMapping
-    @Operation(summary = "Create a new invoice")
-    public ResponseEntity<Invoice> create(@RequestBody InvoiceService.InvoicePayload payload) {
-        Invoice created = invoiceService.createInvoice(payload);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    @Operation(summary = "Create a new invoice; retries with the same Idempotency-Key replay the first result")
+    public ResponseEntity<Invoice> create(@RequestBody InvoiceService.InvoicePayload payload,
+                                          @RequestHeader(value = IdempotencyStore.KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("create", idempotencyKey, payload, () -> {
+            try {
+                Invoice created = invoiceService.createInvoice(payload);
+                return ResponseEntity.status(HttpStatus.CREATED).body(created);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
     }
 
     @GetMapping
-    @Operation(summary = "List invoices with optional filters")
-    public Page<Invoice> list(
+    @Operation(summary = "List invoices with optional filters (customer matches a customer name prefix). " +
+            "Pass cursor (empty for the first page) for keyset paging; the next cursor is returned in X-Next-Cursor. " +
+            "count=false skips the total count. view=summary returns only the summary columns.")
+    public ResponseEntity<Slice<?>> list(
             @RequestParam(value = "agentId", required = false) String agentId,
             @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "customer", required = false) String customer,
             @RequestParam(value = "from", required = false) String from,
             @RequestParam(value = "to", required = false) String to,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "20") int size
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "count", defaultValue = "true") boolean count,
+            @RequestParam(value = "view", defaultValue = "full") String view
     ) {
         LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
         LocalDate toDate = to != null ? LocalDate.parse(to) : null;
-        return invoiceService.listInvoices(agentId, status, fromDate, toDate, page, size);
+        boolean summary = "summary".equalsIgnoreCase(view);
+        if (cursor != null) {
+            try {
+                return cursorPage(summary
+                        ? invoiceService.listInvoiceSummariesAfter(agentId, status, customer, fromDate, toDate, cursor, size)
+                        : invoiceService.listInvoicesAfter(agentId, status, customer, fromDate, toDate, cursor, size), size);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        if (summary) {
+            return ResponseEntity.ok(invoiceService.listInvoiceSummaries(agentId, status, customer, fromDate, toDate, page, size, count));
+        }
+        return ResponseEntity.ok(invoiceService.listInvoices(agentId, status, customer, fromDate, toDate, page, size, count));
+    }
+
+    @GetMapping("/export.zip")
+    @Operation(summary = "Download the PDFs of all invoices created in a date range as a ZIP, streamed to the response")
+    public ResponseEntity<StreamingResponseBody> exportZip(
+            @RequestParam("from") String from,
+            @RequestParam("to") String to,
+            @RequestParam(value = "agentId", required = false) String agentId
+    ) {
+        LocalDate fromDate = LocalDate.parse(from);
+        LocalDate toDate = LocalDate.parse(to);
+        if (toDate.isBefore(fromDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> pdfExporter.exportZip(fromDate, toDate, agentId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoices-" + fromDate + "-to-" + toDate + ".zip")
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search invoices by partial invoice number, customer name, customer GST or mobile")
+    public ResponseEntity<Page<InvoiceService.InvoiceSummary>> search(
+            @RequestParam("q") String q,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        try {
+            return ResponseEntity.ok(invoiceService.searchInvoices(q, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/aging")
+    @Operation(summary = "Receivables aging buckets of SENT invoices, overall or for one agent or customer (id, else name)")
+    public ResponseEntity<ReceivablesAgingService.AgingReport> aging(
+            @RequestParam(value = "agentId", required = false) String agentId,
+            @RequestParam(value = "customer", required = false) String customer
+    ) {
+        return ResponseEntity.ok(receivablesAging.report(agentId, customer));
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get invoice detail including line items")
-    public ResponseEntity<Map<String, Object>> get(@PathVariable("id") String id) {
-        Optional<Invoice> invoiceOpt = invoiceService.findById(id);
-        if (invoiceOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    @Operation(summary = "Get invoice detail including line items; supports If-None-Match with the returned ETag")
+    public ResponseEntity<InvoiceService.InvoiceDetail> get(@PathVariable("id") String id, WebRequest request) {
+        // Only a conditional GET pays for the version probe; otherwise the detail carries the ETag
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Instant> updatedAt = invoiceService.findUpdatedAt(id);
+            if (updatedAt.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            // Answered from the version probe alone: 304 with the ETag already set on the response
+            if (request.checkNotModified(etag(updatedAt.get()))) {
+                return null;
+            }
         }
-        Invoice invoice = invoiceOpt.get();
-        List<InvoiceItem> items = invoiceService.getItemsForInvoice(id);
-        List<InvoiceAudit> audits = invoiceService.getAuditForInvoice(id);
-        return ResponseEntity.ok(Map.of(
-                "invoice", invoice,
-                "items", items,
-                "audit", audits
-        ));
+        return invoiceService.getDetail(id)
+                .map(detail -> ResponseEntity.ok().eTag(etag(detail.invoice().getUpdatedAt())).body(detail))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update an existing invoice (only if draft/new)")
+    @Operation(summary = "Update an existing invoice (only if draft/new); 409 if payload.version is stale")
     public ResponseEntity<Invoice> update(@PathVariable("id") String id,
                                           @RequestBody InvoiceService.InvoicePayload payload) {
-        Optional<Invoice> updated = invoiceService.updateInvoice(id, payload);
-        return updated
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        try {
+            Optional<Invoice> updated = invoiceService.updateInvoice(id, payload);
+            return updated
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -89,27 +204,70 @@ public class InvoiceController {
     }
 
     @PostMapping("/{id}/send")
-    @Operation(summary = "Mark invoice as SENT")
+    @Operation(summary = "Mark invoice as SENT; supports Idempotency-Key and an expected version")
     public ResponseEntity<Invoice> send(@PathVariable("id") String id,
-                                        @RequestParam("actorId") String actorId) {
-        Optional<Invoice> updated = invoiceService.markStatus(id, "SENT", actorId);
-        return updated
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+                                        @RequestParam("actorId") String actorId,
+                                        @RequestParam(value = "version", required = false) Long version,
+                                        @RequestHeader(value = IdempotencyStore.KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("send:" + id, idempotencyKey, List.of(actorId, Optional.ofNullable(version)),
+                () -> markStatus(id, "SENT", actorId, version));
     }
 
     @PostMapping("/{id}/pay")
-    @Operation(summary = "Mark invoice as PAID")
+    @Operation(summary = "Mark invoice as PAID; supports Idempotency-Key and an expected version")
     public ResponseEntity<Invoice> pay(@PathVariable("id") String id,
-                                       @RequestParam("actorId") String actorId) {
-        Optional<Invoice> updated = invoiceService.markStatus(id, "PAID", actorId);
-        return updated
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+                                       @RequestParam("actorId") String actorId,
+                                       @RequestParam(value = "version", required = false) Long version,
+                                       @RequestHeader(value = IdempotencyStore.KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("pay:" + id, idempotencyKey, List.of(actorId, Optional.ofNullable(version)),
+                () -> markStatus(id, "PAID", actorId, version));
+    }
+
+    @PostMapping("/status/bulk")
+    @Operation(summary = "Change the status of many invoices in one transaction, with a result per id")
+    public ResponseEntity<List<InvoiceBulkStatusService.StatusChangeResult>> bulkStatus(
+            @RequestBody InvoiceBulkStatusService.BulkStatusRequest request) {
+        try {
+            return ResponseEntity.ok(bulkStatusService.apply(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
+    @Operation(summary = "Render the invoice PDF on the server; cached until the invoice changes, supports If-None-Match")
+    public ResponseEntity<byte[]> renderPdf(@PathVariable("id") String id, WebRequest request) {
+        Optional<Instant> updatedAt = invoiceService.findUpdatedAt(id);
+        if (updatedAt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (request.checkNotModified(etag(updatedAt.get()))) {
+            return null;
+        }
+        Optional<CompletableFuture<byte[]>> rendering = pdfRenderer.render(id, updatedAt.get());
+        if (rendering.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        try {
+            byte[] pdf = rendering.get().get(pdfRenderTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return ResponseEntity.ok()
+                    .eTag(etag(updatedAt.get()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"invoice-" + id + ".pdf\"")
+                    .body(pdf);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException e) {
+            HttpStatus status = e.getCause() instanceof RejectedExecutionException
+                    ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @PostMapping("/{id}/pdf")
-    @Operation(summary = "Upload generated invoice PDF and attach to invoice")
+    @Operation(summary = "Upload generated invoice PDF and attach to invoice; identical re-uploads are not stored twice")
     public ResponseEntity<Invoice> uploadPdf(@PathVariable("id") String id,
                                              @RequestPart("file") MultipartFile file,
                                              @RequestParam(value = "actorId", required = false) String actorId) {
@@ -118,8 +276,35 @@ public class InvoiceController {
             return updated
                     .map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    private ResponseEntity<Invoice> markStatus(String id, String status, String actorId, Long version) {
+        try {
+            Optional<Invoice> updated = invoiceService.markStatus(id, status, actorId, version);
+            return updated
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private ResponseEntity<Slice<?>> cursorPage(InvoiceService.InvoiceCursorPage<?> page, int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(new SliceImpl<>(page.content(), PageRequest.of(0, size), page.nextCursor() != null));
+    }
+
+    // Microsecond precision, as stored, so the tag of a freshly saved entity matches later reads
+    private String etag(Instant updatedAt) {
+        Instant stored = updatedAt.truncatedTo(ChronoUnit.MICROS);
+        return "\"" + stored.getEpochSecond() + "." + stored.getNano() / 1000 + "\"";
+    }
 }
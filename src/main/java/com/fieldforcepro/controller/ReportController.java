@@ -1,9 +1,16 @@
 package com.fieldforcepro.controller;
 
+import com.fieldforcepro.model.ReportFormat;
+import com.fieldforcepro.model.ReportType;
 import com.fieldforcepro.service.ReportService;
 import com.fieldforcepro.service.ReportService.AttendanceReportRow;
 import com.fieldforcepro.service.ReportService.OrdersReportRow;
+import com.fieldforcepro.service.ReportService.ReportPage;
 import com.fieldforcepro.service.ReportService.SalesReportRow;
+import com.fieldforcepro.service.SalesRollupService;
+import com.fieldforcepro.service.SalesRollupService.DailyAgentRow;
+import com.fieldforcepro.service.SalesRollupService.DailyProductRow;
+import com.fieldforcepro.service.SalesRollupService.RebuildResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -11,40 +18,59 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/reports")
 @Tag(name = "Reports")
 public class ReportController {
 
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ReportService reportService;
+    private final SalesRollupService salesRollupService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, SalesRollupService salesRollupService) {
         this.reportService = reportService;
+        this.salesRollupService = salesRollupService;
     }
 
+    // cursor / pageSize are optional; when either is set the response is one keyset page and the
+    // token for the next page is returned in the X-Next-Cursor header
     public record SalesReportRequest(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-            String agentId
+            String agentId,
+            String cursor,
+            Integer pageSize
     ) {}
 
     public record AttendanceReportRequest(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-            String agentId
+            String agentId,
+            String cursor,
+            Integer pageSize
     ) {}
 
-    public record OrdersReportRequest(
+    public record ProductSalesReportRequest(
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
-            String status
+            Long productId
     ) {}
 
-    public enum ReportType { SALES, ATTENDANCE, ORDERS }
+    public record OrdersReportRequest(
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            String status,
+            String cursor,
+            Integer pageSize
+    ) {}
 
     public record ExportRequest(
             ReportType type,
@@ -60,16 +86,56 @@ public class ReportController {
         if (request.fromDate() == null || request.toDate() == null) {
             return ResponseEntity.badRequest().build();
         }
+        if (request.cursor() != null || request.pageSize() != null) {
+            try {
+                return page(reportService.getSalesReportPage(
+                        request.fromDate(), request.toDate(), request.agentId(), request.cursor(), request.pageSize()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
         List<SalesReportRow> rows = reportService.getSalesReport(request.fromDate(), request.toDate(), request.agentId());
         return ResponseEntity.ok(rows);
     }
 
+    @PostMapping("/sales/daily-by-agent")
+    @Operation(summary = "Get daily sales totals per agent and status from the sales rollup (aggregate mode)")
+    public ResponseEntity<List<DailyAgentRow>> getDailySalesByAgent(@RequestBody SalesReportRequest request) {
+        if (request.fromDate() == null || request.toDate() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesRollupService.getDailyByAgent(request.fromDate(), request.toDate(), request.agentId()));
+    }
+
+    @PostMapping("/sales/daily-by-product")
+    @Operation(summary = "Get daily sales totals per product and status from the sales rollup (aggregate mode)")
+    public ResponseEntity<List<DailyProductRow>> getDailySalesByProduct(@RequestBody ProductSalesReportRequest request) {
+        if (request.fromDate() == null || request.toDate() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesRollupService.getDailyByProduct(request.fromDate(), request.toDate(), request.productId()));
+    }
+
+    @PostMapping("/sales/rollups/rebuild")
+    @Operation(summary = "Recompute the daily sales rollups from invoices (repair)")
+    public ResponseEntity<RebuildResult> rebuildSalesRollups() {
+        return ResponseEntity.ok(salesRollupService.rebuild());
+    }
+
     @PostMapping("/attendance")
     @Operation(summary = "Get attendance and visit compliance report for the given date range and optional agent")
     public ResponseEntity<List<AttendanceReportRow>> getAttendanceReport(@RequestBody AttendanceReportRequest request) {
         if (request.fromDate() == null || request.toDate() == null) {
             return ResponseEntity.badRequest().build();
         }
+        if (request.cursor() != null || request.pageSize() != null) {
+            try {
+                return page(reportService.getAttendanceReportPage(
+                        request.fromDate(), request.toDate(), request.agentId(), request.cursor(), request.pageSize()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
         List<AttendanceReportRow> rows = reportService.getAttendanceReport(request.fromDate(), request.toDate(), request.agentId());
         return ResponseEntity.ok(rows);
     }
@@ -80,79 +146,112 @@ public class ReportController {
         if (request.fromDate() == null || request.toDate() == null) {
             return ResponseEntity.badRequest().build();
         }
+        if (request.cursor() != null || request.pageSize() != null) {
+            try {
+                return page(reportService.getOrdersReportPage(
+                        request.fromDate(), request.toDate(), request.status(), request.cursor(), request.pageSize()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
         List<OrdersReportRow> rows = reportService.getOrdersReport(request.fromDate(), request.toDate(), request.status());
         return ResponseEntity.ok(rows);
     }
 
     @PostMapping("/export/excel")
-    @Operation(summary = "Export selected report to Excel (XLSX)")
-    public ResponseEntity<byte[]> exportExcel(@RequestBody ExportRequest request) throws Exception {
+    @Operation(summary = "Export selected report to Excel (XLSX), streamed to the response")
+    public ResponseEntity<StreamingResponseBody> exportExcel(@RequestBody ExportRequest request) {
         if (request.fromDate() == null || request.toDate() == null || request.type() == null) {
             return ResponseEntity.badRequest().build();
         }
-        String filename;
-        byte[] data;
-        switch (request.type()) {
-            case SALES -> {
-                List<SalesReportRow> rows = reportService.getSalesReport(request.fromDate(), request.toDate(), request.agentId());
-                data = reportService.exportSalesToExcel(rows);
-                filename = "sales-report.xlsx";
-            }
-            case ATTENDANCE -> {
-                List<AttendanceReportRow> rows = reportService.getAttendanceReport(request.fromDate(), request.toDate(), request.agentId());
-                data = reportService.exportAttendanceToExcel(rows);
-                filename = "attendance-report.xlsx";
-            }
-            case ORDERS -> {
-                List<OrdersReportRow> rows = reportService.getOrdersReport(request.fromDate(), request.toDate(), request.status());
-                data = reportService.exportOrdersToExcel(rows);
-                filename = "orders-report.xlsx";
-            }
-            default -> {
-                return ResponseEntity.badRequest().build();
-            }
-        }
+        StreamingResponseBody body = out -> reportService.export(
+                request.type(), ReportFormat.EXCEL, request.fromDate(), request.toDate(), request.agentId(), request.status(), out);
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-        return ResponseEntity.ok().headers(headers).body(data);
+        headers.setContentType(MediaType.parseMediaType(ReportFormat.EXCEL.getContentType()));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename(request.type(), ReportFormat.EXCEL));
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
     @PostMapping("/export/pdf")
-    @Operation(summary = "Export selected report to PDF")
-    public ResponseEntity<byte[]> exportPdf(@RequestBody ExportRequest request) throws Exception {
+    @Operation(summary = "Export selected report to PDF, streamed to the response")
+    public ResponseEntity<StreamingResponseBody> exportPdf(@RequestBody ExportRequest request) {
         if (request.fromDate() == null || request.toDate() == null || request.type() == null) {
             return ResponseEntity.badRequest().build();
         }
-        String title;
-        String filename;
-        String dateRange = "From " + request.fromDate() + " to " + request.toDate();
-        byte[] data;
-        switch (request.type()) {
-            case SALES -> {
-                List<SalesReportRow> rows = reportService.getSalesReport(request.fromDate(), request.toDate(), request.agentId());
-                data = reportService.exportSalesToPdf(rows, "Sales Performance Report", dateRange);
-                filename = "sales-report.pdf";
-            }
-            case ATTENDANCE -> {
-                List<AttendanceReportRow> rows = reportService.getAttendanceReport(request.fromDate(), request.toDate(), request.agentId());
-                data = reportService.exportAttendanceToPdf(rows, "Attendance & Visit Report", dateRange);
-                filename = "attendance-report.pdf";
-            }
-            case ORDERS -> {
-                List<OrdersReportRow> rows = reportService.getOrdersReport(request.fromDate(), request.toDate(), request.status());
-                data = reportService.exportOrdersToPdf(rows, "Orders / Pipeline Report", dateRange);
-                filename = "orders-report.pdf";
-            }
-            default -> {
-                return ResponseEntity.badRequest().build();
-            }
+        StreamingResponseBody body = out -> reportService.export(
+                request.type(), ReportFormat.PDF, request.fromDate(), request.toDate(), request.agentId(), request.status(), out);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(ReportFormat.PDF.getContentType()));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename(request.type(), ReportFormat.PDF));
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    @PostMapping("/export/csv")
+    @Operation(summary = "Export selected report as CSV streamed from a database cursor, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestBody ExportRequest request,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        if (request.fromDate() == null || request.toDate() == null || request.type() == null) {
+            return ResponseEntity.badRequest().build();
         }
+        StreamingResponseBody body = compressible(gzip, out -> reportService.export(
+                request.type(), ReportFormat.CSV, request.fromDate(), request.toDate(), request.agentId(), request.status(), out));
+        return ResponseEntity.ok()
+                .headers(textExportHeaders(request.type(), ReportFormat.CSV, gzip))
+                .body(body);
+    }
+
+    @PostMapping("/export/ndjson")
+    @Operation(summary = "Export selected report as newline-delimited JSON streamed from a database cursor, optionally gzip-compressed")
+    public ResponseEntity<StreamingResponseBody> exportNdjson(
+            @RequestBody ExportRequest request,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        if (request.fromDate() == null || request.toDate() == null || request.type() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = compressible(gzip, out -> reportService.export(
+                request.type(), ReportFormat.NDJSON, request.fromDate(), request.toDate(), request.agentId(), request.status(), out));
+        return ResponseEntity.ok()
+                .headers(textExportHeaders(request.type(), ReportFormat.NDJSON, gzip))
+                .body(body);
+    }
 
+    private StreamingResponseBody compressible(boolean gzip, StreamingResponseBody body) {
+        if (!gzip) {
+            return body;
+        }
+        return out -> {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            body.writeTo(gzipOut);
+            gzipOut.finish();
+        };
+    }
+
+    private HttpHeaders textExportHeaders(ReportType type, ReportFormat format, boolean gzip) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
-        return ResponseEntity.ok().headers(headers).body(data);
+        if (gzip) {
+            headers.setContentType(MediaType.parseMediaType("application/gzip"));
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename(type, format) + ".gz");
+        } else {
+            headers.setContentType(MediaType.parseMediaType(format.getContentType()));
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename(type, format));
+        }
+        return headers;
+    }
+
+    private <T> ResponseEntity<List<T>> page(ReportPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.rows());
+    }
+
+    private String filename(ReportType type, ReportFormat format) {
+        return type.name().toLowerCase() + "-report." + format.getExtension();
     }
 }
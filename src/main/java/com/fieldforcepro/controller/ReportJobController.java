@@ -0,0 +1,139 @@
+package com.fieldforcepro.controller;
+
+import com.fieldforcepro.model.ReportFormat;
+import com.fieldforcepro.model.ReportJob;
+import com.fieldforcepro.model.ReportJobStatus;
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.service.ReportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/reports/jobs")
+@Tag(name = "Reports")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    public record CreateReportJobRequest(
+            ReportType type,
+            ReportFormat format,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            String agentId,
+            String status,
+            String requestedBy
+    ) {}
+
+    public record ReportJobResponse(
+            String id,
+            ReportJobStatus status,
+            ReportType type,
+            ReportFormat format,
+            LocalDate fromDate,
+            LocalDate toDate,
+            Long rowsWritten,
+            Long fileSize,
+            String fileName,
+            String downloadUrl,
+            String errorMessage,
+            Instant createdAt,
+            Instant startedAt,
+            Instant completedAt,
+            Instant expiresAt
+    ) {}
+
+    @PostMapping
+    @Operation(summary = "Queue a report export; the file is generated in the background")
+    public ResponseEntity<ReportJobResponse> create(@RequestBody CreateReportJobRequest request) {
+        if (request.type() == null || request.format() == null
+                || request.fromDate() == null || request.toDate() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ReportJob job = reportJobService.submit(request.requestedBy(), request.type(), request.format(),
+                    request.fromDate(), request.toDate(), request.agentId(), request.status());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toResponse(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ReportJobService.TooManyActiveJobsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get report job status and progress")
+    public ResponseEntity<ReportJobResponse> get(@PathVariable("id") String id) {
+        return reportJobService.findJob(id)
+                .map(job -> ResponseEntity.ok(toResponse(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping("/{id}/file")
+    @Operation(summary = "Download the generated report file")
+    public ResponseEntity<Resource> download(@PathVariable("id") String id) {
+        Optional<ReportJob> jobOpt = reportJobService.findJob(id);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        ReportJob job = jobOpt.get();
+        if (job.getStatus() == ReportJobStatus.EXPIRED) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        if (job.getStatus() != ReportJobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Path file = reportJobService.resolveFile(job);
+        if (!Files.exists(file)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName())
+                .body(new FileSystemResource(file));
+    }
+
+    private ReportJobResponse toResponse(ReportJob job) {
+        String downloadUrl = job.getStatus() == ReportJobStatus.COMPLETED
+                ? "/reports/jobs/" + job.getId() + "/file"
+                : null;
+        return new ReportJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getType(),
+                job.getFormat(),
+                job.getFromDate(),
+                job.getToDate(),
+                job.getRowsWritten(),
+                job.getFileSize(),
+                job.getFileName(),
+                downloadUrl,
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getCompletedAt(),
+                job.getExpiresAt()
+        );
+    }
+}
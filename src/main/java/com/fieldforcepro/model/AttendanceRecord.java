@@ -1,5 +1,6 @@
 package com.fieldforcepro.model;
 
+import com.fieldforcepro.model.listener.EntityWriteListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,7 +12,13 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "attendance_records")
+@EntityListeners(EntityWriteListener.class)
+@Table(
+        name = "attendance_records",
+        indexes = {
+                @Index(name = "idx_attendance_check_in_id", columnList = "check_in_time,id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
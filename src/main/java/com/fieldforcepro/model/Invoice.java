@@ -1,5 +1,7 @@
 package com.fieldforcepro.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fieldforcepro.model.listener.EntityWriteListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,10 +11,22 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "invoices")
+@EntityListeners(EntityWriteListener.class)
+@Table(
+        name = "invoices",
+        indexes = {
+                @Index(name = "idx_invoices_created_id", columnList = "created_at,id"),
+                @Index(name = "idx_invoices_agent_status_created", columnList = "agent_id,status,created_at"),
+                @Index(name = "idx_invoices_agent_created", columnList = "agent_id,created_at"),
+                @Index(name = "idx_invoices_status_created", columnList = "status,created_at"),
+                @Index(name = "idx_invoices_customer_name", columnList = "customer_name")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -40,6 +54,11 @@ public class Invoice {
     @Column(name = "customer_snapshot")
     private String customerSnapshotJson;
 
+    // Parsed from customerSnapshotJson on write, so reports and search never read the LOB.
+    // An empty string marks a snapshot without a name.
+    @Column(name = "customer_name", length = 255)
+    private String customerName;
+
     // Company / billed-by snapshot
     @Column(length = 255)
     private String companyName;
@@ -89,6 +108,13 @@ public class Invoice {
     @Column(length = 255)
     private String customerEmail;
 
+    // Written and removed together with the invoice; the API exposes items separately
+    @JsonIgnore
+    @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    @Builder.Default
+    private List<InvoiceItem> items = new ArrayList<>();
+
     @Column(nullable = false, precision = 15, scale = 2)
     private BigDecimal subtotal;
 
@@ -161,6 +187,11 @@ public class Invoice {
     @Column(nullable = false)
     private Instant updatedAt;
 
+    // Optimistic lock: a write based on a stale read fails instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     public void prePersist() {
         if (id == null) {
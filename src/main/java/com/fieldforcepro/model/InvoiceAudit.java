@@ -10,7 +10,12 @@ import lombok.Setter;
 import java.time.Instant;
 
 @Entity
-@Table(name = "invoice_audit")
+@Table(
+        name = "invoice_audit",
+        indexes = {
+                @Index(name = "idx_invoice_audit_invoice_created", columnList = "invoice_id,created_at")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,7 +27,7 @@ public class InvoiceAudit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 36)
+    @Column(name = "invoice_id", nullable = false, length = 36)
     private String invoiceId;
 
     @Column(nullable = false, length = 50)
@@ -34,7 +39,7 @@ public class InvoiceAudit {
     @Column(length = 1000)
     private String details;
 
-    @Column(nullable = false, updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
     @PrePersist
@@ -0,0 +1,63 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Audit events written in the invoice's own transaction and moved to invoice_audit in batches by
+// InvoiceAuditWriter. Block-allocated ids let the insert join the invoice's batched flush.
+@Entity
+@Table(
+        name = "invoice_audit_outbox",
+        indexes = {
+                @Index(name = "idx_invoice_audit_outbox_created", columnList = "created_at,id"),
+                @Index(name = "idx_invoice_audit_outbox_invoice", columnList = "invoice_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoiceAuditOutbox {
+
+    @Id
+    @TableGenerator(
+            name = "invoice_audit_outbox_ids",
+            table = "id_generators",
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "invoice_audit_outbox",
+            allocationSize = 50
+    )
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoice_audit_outbox_ids")
+    private Long id;
+
+    @Column(name = "invoice_id", nullable = false, length = 36)
+    private String invoiceId;
+
+    @Column(nullable = false, length = 50)
+    private String action;
+
+    @Column(nullable = false, length = 36)
+    private String actorId;
+
+    @Column(length = 1000)
+    private String details;
+
+    // Event time, copied to invoice_audit.created_at
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.fieldforcepro.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fieldforcepro.model.listener.EntityWriteListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +12,7 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
+@EntityListeners(EntityWriteListener.class)
 @Table(name = "invoice_items")
 @Getter
 @Setter
@@ -18,10 +21,24 @@ import java.math.BigDecimal;
 @Builder
 public class InvoiceItem {
 
+    // Ids are reserved in blocks so the inserts of a whole invoice can be batched (IDENTITY cannot be)
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_NAME = "invoice_items";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TableGenerator(
+            name = "invoice_item_ids",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = "sequence_name",
+            valueColumnName = "next_val",
+            pkColumnValue = ID_GENERATOR_NAME,
+            allocationSize = ID_ALLOCATION_SIZE
+    )
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "invoice_item_ids")
     private Long id;
 
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "invoice_id", nullable = false)
     private Invoice invoice;
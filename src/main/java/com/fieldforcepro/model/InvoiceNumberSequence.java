@@ -0,0 +1,37 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// One row per invoice year; nextValue is the first number not yet reserved by any app instance
+@Entity
+@Table(name = "invoice_number_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoiceNumberSequence {
+
+    @Id
+    @Column(name = "sequence_year")
+    private Integer year;
+
+    @Column(nullable = false)
+    private long nextValue;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        updatedAt = Instant.now();
+    }
+}
@@ -1,5 +1,6 @@
 package com.fieldforcepro.model;
 
+import com.fieldforcepro.model.listener.EntityWriteListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
+@EntityListeners(EntityWriteListener.class)
 @Table(name = "products")
 @Getter
 @Setter
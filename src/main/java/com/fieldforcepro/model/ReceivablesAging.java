@@ -0,0 +1,61 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+// Daily snapshot of the receivables aging buckets per agent and per customer, written
+// periodically by ReceivablesAgingService. The in-memory buckets are the source for the API.
+@Entity
+@Table(
+        name = "receivables_aging",
+        uniqueConstraints = @UniqueConstraint(name = "uk_receivables_aging", columnNames = {"as_of", "scope", "scope_key"})
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReceivablesAging {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDate asOf;
+
+    @Column(nullable = false, length = 16)
+    private String scope; // ALL, AGENT, CUSTOMER
+
+    @Column(name = "scope_key", nullable = false, length = 255)
+    private String scopeKey;
+
+    @Column(name = "current_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal currentAmount;
+
+    @Column(name = "days_1_30", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days1To30;
+
+    @Column(name = "days_31_60", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days31To60;
+
+    @Column(name = "days_61_90", nullable = false, precision = 19, scale = 2)
+    private BigDecimal days61To90;
+
+    @Column(name = "over_90", nullable = false, precision = 19, scale = 2)
+    private BigDecimal over90;
+
+    @Column(nullable = false)
+    private long openInvoices;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
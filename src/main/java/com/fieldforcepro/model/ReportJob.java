@@ -0,0 +1,100 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(
+        name = "report_jobs",
+        indexes = {
+                @Index(name = "idx_report_jobs_requester_status", columnList = "requested_by,status"),
+                @Index(name = "idx_report_jobs_status_expires", columnList = "status,expires_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReportJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(length = 36, nullable = false)
+    private String requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReportType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReportFormat format;
+
+    @Column(nullable = false)
+    private LocalDate fromDate;
+
+    @Column(nullable = false)
+    private LocalDate toDate;
+
+    @Column(length = 36)
+    private String agentId;
+
+    // Orders report status filter (not the job status)
+    @Column(length = 50)
+    private String statusFilter;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReportJobStatus status;
+
+    private Long rowsWritten;
+
+    // Download name, e.g. sales-report.xlsx; the file on disk is named after the job id
+    @Column(length = 100)
+    private String fileName;
+
+    @Column(length = 500)
+    private String filePath;
+
+    private Long fileSize;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private Instant startedAt;
+
+    private Instant completedAt;
+
+    private Instant expiresAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+        Instant now = Instant.now();
+        createdAt = now;
+        updatedAt = now;
+        if (status == null) {
+            status = ReportJobStatus.PENDING;
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = Instant.now();
+    }
+}
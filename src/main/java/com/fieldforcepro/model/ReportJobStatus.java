@@ -0,0 +1,9 @@
+package com.fieldforcepro.model;
+
+public enum ReportJobStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED,
+    EXPIRED
+}
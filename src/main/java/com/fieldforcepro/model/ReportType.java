@@ -0,0 +1,7 @@
+package com.fieldforcepro.model;
+
+public enum ReportType {
+    SALES,
+    ATTENDANCE,
+    ORDERS
+}
@@ -0,0 +1,51 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Daily invoice totals per agent and status, maintained incrementally by SalesRollupService
+@Entity
+@Table(
+        name = "sales_daily_by_agent",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_daily_agent", columnNames = {"sales_date", "agent_id", "status"}),
+        indexes = @Index(name = "idx_sales_daily_agent_agent", columnList = "agent_id, sales_date")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesDailyByAgent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "agent_id", nullable = false, length = 36)
+    private String agentId;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(nullable = false)
+    private long invoiceCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal total;
+}
@@ -0,0 +1,52 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Daily invoice line totals per product and status, maintained incrementally by SalesRollupService.
+// Lines without a catalogue product are rolled up under productId 0.
+@Entity
+@Table(
+        name = "sales_daily_by_product",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_daily_product", columnNames = {"sales_date", "product_id", "status"}),
+        indexes = @Index(name = "idx_sales_daily_product_product", columnList = "product_id, sales_date")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesDailyByProduct {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private long productId;
+
+    @Column(length = 255)
+    private String productName;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(nullable = false)
+    private long lineCount;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal lineTotal;
+}
@@ -1,5 +1,6 @@
 package com.fieldforcepro.model;
 
+import com.fieldforcepro.model.listener.EntityWriteListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,7 +13,13 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "sales_orders")
+@EntityListeners(EntityWriteListener.class)
+@Table(
+        name = "sales_orders",
+        indexes = {
+                @Index(name = "idx_sales_orders_created_id", columnList = "created_at,id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
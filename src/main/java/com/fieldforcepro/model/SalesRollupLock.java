@@ -0,0 +1,25 @@
+package com.fieldforcepro.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Single guard row: rollup deltas lock it shared, SalesRollupService.rebuild locks it exclusively
+@Entity
+@Table(name = "sales_rollup_lock")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupLock {
+
+    // Always 1
+    @Id
+    private Integer id;
+
+    private Instant rebuiltAt;
+}
@@ -0,0 +1,33 @@
+package com.fieldforcepro.model.listener;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// JPA entity listener (instantiated through Spring) that hands every written entity to the
+// EntityWriteObserver beans. Observers are looked up on first use, not at construction, so they
+// may depend on beans that need the EntityManagerFactory.
+public class EntityWriteListener {
+
+    private final ObjectProvider<EntityWriteObserver> observerProvider;
+    private volatile EntityWriteObserver[] observers;
+
+    public EntityWriteListener(ObjectProvider<EntityWriteObserver> observerProvider) {
+        this.observerProvider = observerProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        EntityWriteObserver[] current = observers;
+        if (current == null) {
+            current = observerProvider.orderedStream().toArray(EntityWriteObserver[]::new);
+            observers = current;
+        }
+        for (EntityWriteObserver observer : current) {
+            observer.onWrite(entity);
+        }
+    }
+}
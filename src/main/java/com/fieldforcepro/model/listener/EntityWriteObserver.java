@@ -0,0 +1,9 @@
+package com.fieldforcepro.model.listener;
+
+// Implemented by beans that react to entity writes (cache invalidation and the like), so the
+// model package does not depend on the services behind them
+public interface EntityWriteObserver {
+
+    // Called inside the writing transaction, after the row was inserted, updated or deleted
+    void onWrite(Object entity);
+}
@@ -1,14 +1,57 @@
 package com.fieldforcepro.repository;
 
 import com.fieldforcepro.model.AttendanceRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AttendanceRecordRepository extends JpaRepository<AttendanceRecord, String> {
 
     List<AttendanceRecord> findByAgentIdAndCheckInTimeBetween(String agentId, Instant from, Instant to);
 
     void deleteByAgentIdAndCheckInTimeBetween(String agentId, Instant from, Instant to);
+
+    interface AttendanceReportLine {
+        String getId();
+        String getAgentId();
+        String getAgentName();
+        Instant getCheckInTime();
+        Instant getCheckOutTime();
+        String getStatus();
+    }
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT r.id AS id, r.agentId AS agentId, r.agentName AS agentName, r.checkInTime AS checkInTime, " +
+            "r.checkOutTime AS checkOutTime, r.status AS status " +
+            "FROM AttendanceRecord r " +
+            "WHERE r.checkInTime >= :from AND r.checkInTime < :to " +
+            "AND (:agentId IS NULL OR r.agentId = :agentId) " +
+            "ORDER BY r.checkInTime, r.id")
+    Stream<AttendanceReportLine> streamReportLines(@Param("from") Instant from,
+                                                   @Param("to") Instant to,
+                                                   @Param("agentId") String agentId);
+
+    // Keyset page after (afterCheckIn, afterId); pass the range start and "" for the first page.
+    // The pageable must always request page 0.
+    @Query("SELECT r.id AS id, r.agentId AS agentId, r.agentName AS agentName, r.checkInTime AS checkInTime, " +
+            "r.checkOutTime AS checkOutTime, r.status AS status " +
+            "FROM AttendanceRecord r " +
+            "WHERE (r.checkInTime > :afterCheckIn OR (r.checkInTime = :afterCheckIn AND r.id > :afterId)) " +
+            "AND r.checkInTime < :to " +
+            "AND (:agentId IS NULL OR r.agentId = :agentId) " +
+            "ORDER BY r.checkInTime, r.id")
+    List<AttendanceReportLine> findReportLinesAfter(@Param("afterCheckIn") Instant afterCheckIn,
+                                                    @Param("afterId") String afterId,
+                                                    @Param("to") Instant to,
+                                                    @Param("agentId") String agentId,
+                                                    Pageable pageable);
 }
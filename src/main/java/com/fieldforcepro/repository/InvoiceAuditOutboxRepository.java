@@ -0,0 +1,18 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.InvoiceAuditOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface InvoiceAuditOutboxRepository extends JpaRepository<InvoiceAuditOutbox, Long> {
+
+    // Oldest pending events, locked so writers on other instances wait instead of copying them twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM InvoiceAuditOutbox o ORDER BY o.createdAt, o.id")
+    List<InvoiceAuditOutbox> findOldestForUpdate(Pageable pageable);
+}
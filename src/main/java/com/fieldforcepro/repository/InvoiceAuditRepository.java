@@ -2,10 +2,33 @@ package com.fieldforcepro.repository;
 
 import com.fieldforcepro.model.InvoiceAudit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface InvoiceAuditRepository extends JpaRepository<InvoiceAudit, Long> {
 
     List<InvoiceAudit> findByInvoiceIdOrderByCreatedAtAsc(String invoiceId);
+
+    interface AuditTrailLine {
+        Long getId();
+        String getInvoiceId();
+        String getAction();
+        String getActorId();
+        String getDetails();
+        Instant getCreatedAt();
+        int getPending();
+    }
+
+    // Events in invoice_audit and those still in invoice_audit_outbox, in one statement so both
+    // tables are read from the same snapshot. Unordered: an ORDER BY would bind to the second branch.
+    @Query("SELECT a.id AS id, a.invoiceId AS invoiceId, a.action AS action, a.actorId AS actorId, " +
+            "a.details AS details, a.createdAt AS createdAt, 0 AS pending " +
+            "FROM InvoiceAudit a WHERE a.invoiceId = :invoiceId " +
+            "UNION ALL " +
+            "SELECT o.id, o.invoiceId, o.action, o.actorId, o.details, o.createdAt, 1 " +
+            "FROM InvoiceAuditOutbox o WHERE o.invoiceId = :invoiceId")
+    List<AuditTrailLine> findTrailByInvoiceId(@Param("invoiceId") String invoiceId);
 }
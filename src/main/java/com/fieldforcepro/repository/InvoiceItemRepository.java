@@ -1,11 +1,40 @@
 package com.fieldforcepro.repository;
 
 import com.fieldforcepro.model.InvoiceItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
 
     List<InvoiceItem> findByInvoiceId(String invoiceId);
+
+    List<InvoiceItem> findByInvoiceIdInOrderByIdAsc(Collection<String> invoiceIds);
+
+    @Query("SELECT MAX(item.id) FROM InvoiceItem item")
+    Long findMaxId();
+
+    interface RollupItemLine {
+        Long getProductId();
+        String getName();
+        Integer getQuantity();
+        BigDecimal getLineTotal();
+        String getStatus();
+        Instant getCreatedAt();
+    }
+
+    // Narrow scan over every invoice line, used to rebuild the daily sales rollups
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT item.productId AS productId, item.name AS name, item.quantity AS quantity, " +
+            "item.lineTotal AS lineTotal, i.status AS status, i.createdAt AS createdAt " +
+            "FROM InvoiceItem item JOIN item.invoice i")
+    Stream<RollupItemLine> streamRollupItems();
 }
@@ -0,0 +1,18 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.InvoiceNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface InvoiceNumberSequenceRepository extends JpaRepository<InvoiceNumberSequence, Integer> {
+
+    // SELECT ... FOR UPDATE: serialises block reservations across app instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InvoiceNumberSequence s WHERE s.year = :year")
+    Optional<InvoiceNumberSequence> findForUpdate(@Param("year") int year);
+}
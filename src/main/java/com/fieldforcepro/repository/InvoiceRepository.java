@@ -1,13 +1,268 @@
 package com.fieldforcepro.repository;
 
 import com.fieldforcepro.model.Invoice;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, String> {
 
-    Page<Invoice> findByAgentId(String agentId, Pageable pageable);
+    // Invoice listing: every filter is optional (null), newest first. The createdAt range is
+    // half-open and customerPrefix is a LIKE prefix that the caller has already escaped.
+    String LIST_FILTER = "WHERE (:agentId IS NULL OR i.agentId = :agentId) " +
+            "AND (:status IS NULL OR i.status = :status) " +
+            "AND (:customerPrefix IS NULL OR i.customerName LIKE CONCAT(:customerPrefix, '%') ESCAPE '!') " +
+            "AND (:from IS NULL OR i.createdAt >= :from) " +
+            "AND (:to IS NULL OR i.createdAt < :to) ";
+
+    @Query(value = "SELECT i FROM Invoice i " + LIST_FILTER + "ORDER BY i.createdAt DESC, i.id DESC",
+            countQuery = "SELECT COUNT(i) FROM Invoice i " + LIST_FILTER)
+    Page<Invoice> findFiltered(@Param("agentId") String agentId,
+                               @Param("status") String status,
+                               @Param("customerPrefix") String customerPrefix,
+                               @Param("from") Instant from,
+                               @Param("to") Instant to,
+                               Pageable pageable);
+
+    // Same listing without the count query
+    @Query("SELECT i FROM Invoice i " + LIST_FILTER + "ORDER BY i.createdAt DESC, i.id DESC")
+    Slice<Invoice> findFilteredSlice(@Param("agentId") String agentId,
+                                     @Param("status") String status,
+                                     @Param("customerPrefix") String customerPrefix,
+                                     @Param("from") Instant from,
+                                     @Param("to") Instant to,
+                                     Pageable pageable);
+
+    // Keyset page of the listing, strictly after (beforeCreatedAt, beforeId) in newest-first order;
+    // pass null for the first page. The pageable must always request page 0.
+    @Query("SELECT i FROM Invoice i " + LIST_FILTER +
+            "AND (:beforeCreatedAt IS NULL OR i.createdAt < :beforeCreatedAt " +
+            "OR (i.createdAt = :beforeCreatedAt AND i.id < :beforeId)) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<Invoice> findFilteredBefore(@Param("agentId") String agentId,
+                                     @Param("status") String status,
+                                     @Param("customerPrefix") String customerPrefix,
+                                     @Param("from") Instant from,
+                                     @Param("to") Instant to,
+                                     @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                     @Param("beforeId") String beforeId,
+                                     Pageable pageable);
+
+    // Summary columns only: no LOBs and none of the snapshot, bank or terms text
+    interface InvoiceSummaryLine {
+        String getId();
+        String getInvoiceNo();
+        String getAgentId();
+        String getCustomerName();
+        BigDecimal getTotal();
+        String getStatus();
+        Instant getCreatedAt();
+    }
+
+    String SUMMARY_SELECT = "SELECT i.id AS id, i.invoiceNo AS invoiceNo, i.agentId AS agentId, " +
+            "i.customerName AS customerName, i.total AS total, i.status AS status, i.createdAt AS createdAt " +
+            "FROM Invoice i ";
+
+    @Query(value = SUMMARY_SELECT + LIST_FILTER + "ORDER BY i.createdAt DESC, i.id DESC",
+            countQuery = "SELECT COUNT(i) FROM Invoice i " + LIST_FILTER)
+    Page<InvoiceSummaryLine> findFilteredSummaries(@Param("agentId") String agentId,
+                                                   @Param("status") String status,
+                                                   @Param("customerPrefix") String customerPrefix,
+                                                   @Param("from") Instant from,
+                                                   @Param("to") Instant to,
+                                                   Pageable pageable);
+
+    @Query(SUMMARY_SELECT + LIST_FILTER + "ORDER BY i.createdAt DESC, i.id DESC")
+    Slice<InvoiceSummaryLine> findFilteredSummarySlice(@Param("agentId") String agentId,
+                                                       @Param("status") String status,
+                                                       @Param("customerPrefix") String customerPrefix,
+                                                       @Param("from") Instant from,
+                                                       @Param("to") Instant to,
+                                                       Pageable pageable);
+
+    @Query(SUMMARY_SELECT + LIST_FILTER +
+            "AND (:beforeCreatedAt IS NULL OR i.createdAt < :beforeCreatedAt " +
+            "OR (i.createdAt = :beforeCreatedAt AND i.id < :beforeId)) " +
+            "ORDER BY i.createdAt DESC, i.id DESC")
+    List<InvoiceSummaryLine> findFilteredSummariesBefore(@Param("agentId") String agentId,
+                                                         @Param("status") String status,
+                                                         @Param("customerPrefix") String customerPrefix,
+                                                         @Param("from") Instant from,
+                                                         @Param("to") Instant to,
+                                                         @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                                         @Param("beforeId") String beforeId,
+                                                         Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE i.id IN :ids")
+    List<InvoiceSummaryLine> findSummariesByIdIn(@Param("ids") Collection<String> ids);
+
+    // Search over the ft_invoices_search FULLTEXT index created by InvoiceSearchIndex
+    @Query(value = "SELECT i.id FROM invoices i " +
+            "WHERE MATCH(i.invoice_no, i.customer_name, i.customer_gst, i.customer_mobile) AGAINST (:query IN BOOLEAN MODE) " +
+            "ORDER BY i.created_at DESC, i.id DESC",
+            countQuery = "SELECT COUNT(*) FROM invoices i " +
+                    "WHERE MATCH(i.invoice_no, i.customer_name, i.customer_gst, i.customer_mobile) AGAINST (:query IN BOOLEAN MODE)",
+            nativeQuery = true)
+    Page<String> searchIdsFullText(@Param("query") String query, Pageable pageable);
+
+    // Fallback when the FULLTEXT index is unavailable; pattern is lower case and escaped with '!'
+    @Query(value = "SELECT i.id FROM Invoice i " +
+            "WHERE LOWER(i.invoiceNo) LIKE :pattern ESCAPE '!' OR LOWER(i.customerName) LIKE :pattern ESCAPE '!' " +
+            "OR LOWER(i.customerGst) LIKE :pattern ESCAPE '!' OR i.customerMobile LIKE :pattern ESCAPE '!' " +
+            "ORDER BY i.createdAt DESC, i.id DESC",
+            countQuery = "SELECT COUNT(i) FROM Invoice i " +
+                    "WHERE LOWER(i.invoiceNo) LIKE :pattern ESCAPE '!' OR LOWER(i.customerName) LIKE :pattern ESCAPE '!' " +
+                    "OR LOWER(i.customerGst) LIKE :pattern ESCAPE '!' OR i.customerMobile LIKE :pattern ESCAPE '!'")
+    Page<String> searchIdsByPattern(@Param("pattern") String pattern, Pageable pageable);
+
+    // Invoice and its items in one query, for the detail view
+    @EntityGraph(attributePaths = "items")
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id")
+    Optional<Invoice> findWithItemsById(@Param("id") String id);
+
+    @Query("SELECT i.updatedAt FROM Invoice i WHERE i.id = :id")
+    Optional<Instant> findUpdatedAtById(@Param("id") String id);
+
+    // Keyset page of whole invoices in (createdAt, id) order, for the PDF export; pass the range
+    // start and "" for the first page. The pageable must always request page 0.
+    @Query("SELECT i FROM Invoice i " +
+            "WHERE (i.createdAt > :afterCreatedAt OR (i.createdAt = :afterCreatedAt AND i.id > :afterId)) " +
+            "AND i.createdAt < :to " +
+            "AND (:agentId IS NULL OR i.agentId = :agentId) " +
+            "ORDER BY i.createdAt, i.id")
+    List<Invoice> findPageAfter(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                @Param("afterId") String afterId,
+                                @Param("to") Instant to,
+                                @Param("agentId") String agentId,
+                                Pageable pageable);
+
+    interface CustomerSnapshotLine {
+        String getId();
+        String getCustomerSnapshotJson();
+    }
+
+    // Next batch of invoices whose customer_name has not been extracted yet; every processed row
+    // gets a non-null value, so repeating the query walks the table without an offset
+    @Query("SELECT i.id AS id, i.customerSnapshotJson AS customerSnapshotJson FROM Invoice i " +
+            "WHERE i.customerName IS NULL ORDER BY i.id")
+    List<CustomerSnapshotLine> findCustomerNameBackfillBatch(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Invoice i SET i.customerName = :customerName WHERE i.id = :id")
+    int updateCustomerName(@Param("id") String id, @Param("customerName") String customerName);
+
+    interface SalesReportLine {
+        String getInvoiceId();
+        String getInvoiceNo();
+        String getAgentId();
+        String getAgentName();
+        String getCustomerName();
+        String getProductName();
+        BigDecimal getTotal();
+        String getStatus();
+        Instant getInvoiceDate();
+    }
+
+    // One row per invoice item (or per invoice without items). A fetch size of Integer.MIN_VALUE
+    // makes MySQL Connector/J stream the result set row by row instead of buffering it.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.id AS invoiceId, i.invoiceNo AS invoiceNo, i.agentId AS agentId, i.agentName AS agentName, " +
+            "i.customerName AS customerName, item.name AS productName, i.total AS total, " +
+            "i.status AS status, i.invoiceDate AS invoiceDate " +
+            "FROM Invoice i LEFT JOIN InvoiceItem item ON item.invoice = i " +
+            "WHERE i.createdAt >= :from AND i.createdAt < :to " +
+            "AND (:agentId IS NULL OR i.agentId = :agentId) " +
+            "ORDER BY i.createdAt, i.id")
+    Stream<SalesReportLine> streamSalesLines(@Param("from") Instant from,
+                                             @Param("to") Instant to,
+                                             @Param("agentId") String agentId);
+
+    interface InvoiceKey {
+        String getId();
+        Instant getCreatedAt();
+    }
+
+    // Keyset page of invoice keys after (afterCreatedAt, afterId); pass the range start and ""
+    // for the first page. The pageable must always request page 0.
+    @Query("SELECT i.id AS id, i.createdAt AS createdAt FROM Invoice i " +
+            "WHERE (i.createdAt > :afterCreatedAt OR (i.createdAt = :afterCreatedAt AND i.id > :afterId)) " +
+            "AND i.createdAt < :to " +
+            "AND (:agentId IS NULL OR i.agentId = :agentId) " +
+            "ORDER BY i.createdAt, i.id")
+    List<InvoiceKey> findSalesKeysAfter(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                        @Param("afterId") String afterId,
+                                        @Param("to") Instant to,
+                                        @Param("agentId") String agentId,
+                                        Pageable pageable);
+
+    @Query("SELECT i.id AS invoiceId, i.invoiceNo AS invoiceNo, i.agentId AS agentId, i.agentName AS agentName, " +
+            "i.customerName AS customerName, item.name AS productName, i.total AS total, " +
+            "i.status AS status, i.invoiceDate AS invoiceDate " +
+            "FROM Invoice i LEFT JOIN InvoiceItem item ON item.invoice = i " +
+            "WHERE i.id IN :ids " +
+            "ORDER BY i.createdAt, i.id")
+    List<SalesReportLine> findSalesLines(@Param("ids") Collection<String> ids);
+
+    interface RollupInvoiceLine {
+        String getAgentId();
+        String getStatus();
+        Instant getCreatedAt();
+        BigDecimal getSubtotal();
+        BigDecimal getTaxAmount();
+        BigDecimal getTotal();
+    }
+
+    // Narrow scan over every invoice, used to rebuild the daily sales rollups
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.agentId AS agentId, i.status AS status, i.createdAt AS createdAt, " +
+            "i.subtotal AS subtotal, i.taxAmount AS taxAmount, i.total AS total FROM Invoice i")
+    Stream<RollupInvoiceLine> streamRollupInvoices();
+
+    interface AgingInvoiceLine {
+        String getId();
+        String getAgentId();
+        String getCustomerId();
+        String getCustomerName();
+        BigDecimal getTotal();
+        Instant getInvoiceDate();
+        Instant getDueDate();
+    }
+
+    // Open receivables only, used to load the in-memory aging buckets
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT i.id AS id, i.agentId AS agentId, i.customerId AS customerId, i.customerName AS customerName, " +
+            "i.total AS total, i.invoiceDate AS invoiceDate, i.dueDate AS dueDate " +
+            "FROM Invoice i WHERE i.status IN :statuses")
+    Stream<AgingInvoiceLine> streamOpenReceivables(@Param("statuses") Collection<String> statuses);
+
+    // Locks the invoices of a bulk status change until its transaction ends, in id order so
+    // overlapping bulk changes cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id IN :ids ORDER BY i.id")
+    List<Invoice> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
 
-    Page<Invoice> findByAgentIdAndStatus(String agentId, String status, Pageable pageable);
+    // Set-based status change; bypasses entity listeners, so callers maintain rollups and caches
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.status = :status, i.updatedAt = :updatedAt, i.version = i.version + 1 " +
+            "WHERE i.id IN :ids")
+    int updateStatus(@Param("ids") Collection<String> ids,
+                     @Param("status") String status,
+                     @Param("updatedAt") Instant updatedAt);
 }
@@ -0,0 +1,18 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.ReportJob;
+import com.fieldforcepro.model.ReportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReportJobRepository extends JpaRepository<ReportJob, String> {
+
+    long countByRequestedByAndStatusIn(String requestedBy, Collection<ReportJobStatus> statuses);
+
+    List<ReportJob> findByStatusIn(Collection<ReportJobStatus> statuses);
+
+    List<ReportJob> findByStatusInAndExpiresAtBefore(Collection<ReportJobStatus> statuses, Instant cutoff);
+}
@@ -0,0 +1,48 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.SalesDailyByAgent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesDailyByAgentRepository extends JpaRepository<SalesDailyByAgent, Long> {
+
+    // Adds a (possibly negative) delta to the day's row, creating it on first use
+    @Modifying
+    @Query(
+            value = "INSERT INTO sales_daily_by_agent " +
+                    "(sales_date, agent_id, status, invoice_count, subtotal, tax_amount, total) " +
+                    "VALUES (:salesDate, :agentId, :status, :invoiceCount, :subtotal, :taxAmount, :total) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "invoice_count = invoice_count + VALUES(invoice_count), " +
+                    "subtotal = subtotal + VALUES(subtotal), " +
+                    "tax_amount = tax_amount + VALUES(tax_amount), " +
+                    "total = total + VALUES(total)",
+            nativeQuery = true
+    )
+    int applyDelta(@Param("salesDate") LocalDate salesDate,
+                   @Param("agentId") String agentId,
+                   @Param("status") String status,
+                   @Param("invoiceCount") long invoiceCount,
+                   @Param("subtotal") BigDecimal subtotal,
+                   @Param("taxAmount") BigDecimal taxAmount,
+                   @Param("total") BigDecimal total);
+
+    @Query("SELECT r FROM SalesDailyByAgent r " +
+            "WHERE r.salesDate BETWEEN :from AND :to " +
+            "AND (:agentId IS NULL OR r.agentId = :agentId) " +
+            "AND r.invoiceCount <> 0 " +
+            "ORDER BY r.salesDate, r.agentId, r.status")
+    List<SalesDailyByAgent> findRange(@Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      @Param("agentId") String agentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_by_agent", nativeQuery = true)
+    int deleteAllRows();
+}
@@ -0,0 +1,48 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.SalesDailyByProduct;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesDailyByProductRepository extends JpaRepository<SalesDailyByProduct, Long> {
+
+    // Adds a (possibly negative) delta to the day's row, creating it on first use
+    @Modifying
+    @Query(
+            value = "INSERT INTO sales_daily_by_product " +
+                    "(sales_date, product_id, product_name, status, line_count, quantity, line_total) " +
+                    "VALUES (:salesDate, :productId, :productName, :status, :lineCount, :quantity, :lineTotal) " +
+                    "ON DUPLICATE KEY UPDATE " +
+                    "product_name = COALESCE(VALUES(product_name), product_name), " +
+                    "line_count = line_count + VALUES(line_count), " +
+                    "quantity = quantity + VALUES(quantity), " +
+                    "line_total = line_total + VALUES(line_total)",
+            nativeQuery = true
+    )
+    int applyDelta(@Param("salesDate") LocalDate salesDate,
+                   @Param("productId") long productId,
+                   @Param("productName") String productName,
+                   @Param("status") String status,
+                   @Param("lineCount") long lineCount,
+                   @Param("quantity") long quantity,
+                   @Param("lineTotal") BigDecimal lineTotal);
+
+    @Query("SELECT r FROM SalesDailyByProduct r " +
+            "WHERE r.salesDate BETWEEN :from AND :to " +
+            "AND (:productId IS NULL OR r.productId = :productId) " +
+            "AND r.lineCount <> 0 " +
+            "ORDER BY r.salesDate, r.productId, r.status")
+    List<SalesDailyByProduct> findRange(@Param("from") LocalDate from,
+                                        @Param("to") LocalDate to,
+                                        @Param("productId") Long productId);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_daily_by_product", nativeQuery = true)
+    int deleteAllRows();
+}
@@ -1,7 +1,54 @@
 package com.fieldforcepro.repository;
 
 import com.fieldforcepro.model.SalesOrder;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface SalesOrderRepository extends JpaRepository<SalesOrder, String> {
+
+    interface OrdersReportLine {
+        String getId();
+        String getOrderNumber();
+        String getCustomerName();
+        BigDecimal getAmount();
+        String getStatus();
+        Instant getCreatedAt();
+    }
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the whole result
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.customerName AS customerName, " +
+            "o.amount AS amount, o.status AS status, o.createdAt AS createdAt " +
+            "FROM SalesOrder o " +
+            "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+            "AND (:status IS NULL OR UPPER(o.status) = UPPER(:status)) " +
+            "ORDER BY o.createdAt, o.id")
+    Stream<OrdersReportLine> streamReportLines(@Param("from") Instant from,
+                                               @Param("to") Instant to,
+                                               @Param("status") String status);
+
+    // Keyset page after (afterCreatedAt, afterId); pass the range start and "" for the first page.
+    // The pageable must always request page 0.
+    @Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.customerName AS customerName, " +
+            "o.amount AS amount, o.status AS status, o.createdAt AS createdAt " +
+            "FROM SalesOrder o " +
+            "WHERE (o.createdAt > :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id > :afterId)) " +
+            "AND o.createdAt < :to " +
+            "AND (:status IS NULL OR UPPER(o.status) = UPPER(:status)) " +
+            "ORDER BY o.createdAt, o.id")
+    List<OrdersReportLine> findReportLinesAfter(@Param("afterCreatedAt") Instant afterCreatedAt,
+                                                @Param("afterId") String afterId,
+                                                @Param("to") Instant to,
+                                                @Param("status") String status,
+                                                Pageable pageable);
 }
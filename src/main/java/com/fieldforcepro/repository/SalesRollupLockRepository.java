@@ -0,0 +1,29 @@
+package com.fieldforcepro.repository;
+
+import com.fieldforcepro.model.SalesRollupLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface SalesRollupLockRepository extends JpaRepository<SalesRollupLock, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO sales_rollup_lock (id) VALUES (1)", nativeQuery = true)
+    int ensureRow();
+
+    // Shared: concurrent writers do not wait for each other, only for a rebuild
+    @Query(value = "SELECT id FROM sales_rollup_lock WHERE id = 1 LOCK IN SHARE MODE", nativeQuery = true)
+    Optional<Integer> lockShared();
+
+    // Exclusive: waits for writers that hold the shared lock to commit and blocks new ones
+    @Query(value = "SELECT id FROM sales_rollup_lock WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockExclusive();
+
+    @Modifying
+    @Query(value = "UPDATE sales_rollup_lock SET rebuilt_at = :rebuiltAt WHERE id = 1", nativeQuery = true)
+    int markRebuilt(@Param("rebuiltAt") Instant rebuiltAt);
+}
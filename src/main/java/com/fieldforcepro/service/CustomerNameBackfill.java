@@ -0,0 +1,79 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.InvoiceRepository.CustomerSnapshotLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Fills invoices.customer_name for rows written before the column existed. Runs once at startup in
+// batches, each in its own short transaction, until no unprocessed rows are left.
+@Component
+public class CustomerNameBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerNameBackfill.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceService invoiceService;
+    private final ReportCache reportCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public CustomerNameBackfill(
+            InvoiceRepository invoiceRepository,
+            InvoiceService invoiceService,
+            ReportCache reportCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${fieldforcepro.invoices.customer-name-backfill.enabled:true}") boolean enabled,
+            @Value("${fieldforcepro.invoices.customer-name-backfill.batch-size:500}") int batchSize
+    ) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoiceService = invoiceService;
+        this.reportCache = reportCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    public long backfill() {
+        long updated = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(tx -> {
+                List<CustomerSnapshotLine> batch =
+                        invoiceRepository.findCustomerNameBackfillBatch(PageRequest.of(0, batchSize));
+                for (CustomerSnapshotLine line : batch) {
+                    invoiceRepository.updateCustomerName(line.getId(),
+                            invoiceService.extractCustomerName(line.getCustomerSnapshotJson()));
+                }
+                return batch.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            updated += count;
+        }
+        if (updated > 0) {
+            // Cached sales rows were built before the names were available
+            reportCache.invalidateAll(ReportType.SALES);
+            log.info("Backfilled customer_name for {} invoices", updated);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,235 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Activity;
+import com.fieldforcepro.model.Location;
+import com.fieldforcepro.repository.ActivityRepository;
+import com.fieldforcepro.repository.LocationRepository;
+import com.fieldforcepro.service.ReportService.AttendanceReportRow;
+import com.fieldforcepro.service.ReportService.OrdersReportRow;
+import com.fieldforcepro.service.SalesRollupService.DailyAgentRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Builds the admin dashboard from independent parts computed concurrently. Every part has its own
+// timeout; a part that fails, times out or cannot be scheduled is returned as null and listed in
+// unavailableParts, so the response time is bounded by the slowest part rather than their sum.
+// A timed-out part is also stopped: its task is cancelled, and it runs in a read-only transaction
+// whose timeout becomes the JDBC query timeout, so the database abandons the query too.
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+    private static final int RECENT_ACTIVITY_LIMIT = 10;
+
+    private final ReportService reportService;
+    private final SalesRollupService salesRollupService;
+    private final ActivityRepository activityRepository;
+    private final LocationRepository locationRepository;
+    private final Duration partTimeout;
+    private final TransactionTemplate partTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public DashboardService(
+            ReportService reportService,
+            SalesRollupService salesRollupService,
+            ActivityRepository activityRepository,
+            LocationRepository locationRepository,
+            @Value("${fieldforcepro.dashboard.threads:8}") int threads,
+            @Value("${fieldforcepro.dashboard.queue-capacity:64}") int queueCapacity,
+            @Value("${fieldforcepro.dashboard.part-timeout:3s}") Duration partTimeout,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.reportService = reportService;
+        this.salesRollupService = salesRollupService;
+        this.activityRepository = activityRepository;
+        this.locationRepository = locationRepository;
+        this.partTimeout = partTimeout;
+        this.partTransaction = new TransactionTemplate(transactionManager);
+        this.partTransaction.setReadOnly(true);
+        // Transaction timeouts are whole seconds
+        this.partTransaction.setTimeout((int) Math.max(1, (partTimeout.toMillis() + 999) / 1000));
+
+        // Bounded pool and queue: a burst of dashboard loads degrades to partial results instead
+        // of queueing unbounded work or taking every DB connection
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public record SalesSummary(long invoiceCount, BigDecimal total, Map<String, BigDecimal> totalByStatus) { }
+
+    public record AttendanceSummary(long records, long agents, long openCheckIns, Map<String, Long> byStatus) { }
+
+    public record OrdersSummary(long orders, BigDecimal amount, Map<String, Long> byStatus) { }
+
+    public record RecentActivity(
+            String id,
+            Long agentId,
+            String agentName,
+            String customerName,
+            String activity,
+            String status,
+            Instant occurredAt
+    ) { }
+
+    public record DashboardSummary(
+            LocalDate fromDate,
+            LocalDate toDate,
+            SalesSummary sales,
+            AttendanceSummary attendance,
+            OrdersSummary orders,
+            List<RecentActivity> recentActivity,
+            List<Location> onlineAgents,
+            List<String> unavailableParts
+    ) { }
+
+    public DashboardSummary getSummary(LocalDate from, LocalDate to) {
+        CompletableFuture<SalesSummary> sales = part("sales", () -> salesSummary(from, to));
+        CompletableFuture<AttendanceSummary> attendance = part("attendance", () -> attendanceSummary(from, to));
+        CompletableFuture<OrdersSummary> orders = part("orders", () -> ordersSummary(from, to));
+        CompletableFuture<List<RecentActivity>> recentActivity = part("recentActivity", this::recentActivity);
+        CompletableFuture<List<Location>> onlineAgents = part("onlineAgents", locationRepository::findLatestPerAgent);
+
+        // Each part completes (with a value or null) within its own timeout, so this join is bounded
+        CompletableFuture.allOf(sales, attendance, orders, recentActivity, onlineAgents).join();
+
+        List<String> unavailable = new ArrayList<>();
+        return new DashboardSummary(
+                from,
+                to,
+                result("sales", sales, unavailable),
+                result("attendance", attendance, unavailable),
+                result("orders", orders, unavailable),
+                result("recentActivity", recentActivity, unavailable),
+                result("onlineAgents", onlineAgents, unavailable),
+                unavailable
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> part(String name, Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(partTransaction.execute(tx -> supplier.get()));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Dashboard part {} rejected: {}", name, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return result
+                .orTimeout(partTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    // Interrupts a running part; a queued one is taken off the queue
+                    if (task.cancel(true)) {
+                        executor.remove((Runnable) task);
+                    }
+                    log.warn("Dashboard part {} unavailable: {}", name, e.toString());
+                    return null;
+                });
+    }
+
+    private <T> T result(String name, CompletableFuture<T> future, List<String> unavailable) {
+        T value = future.join();
+        if (value == null) {
+            unavailable.add(name);
+        }
+        return value;
+    }
+
+    private SalesSummary salesSummary(LocalDate from, LocalDate to) {
+        long invoiceCount = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        Map<String, BigDecimal> byStatus = new TreeMap<>();
+        for (DailyAgentRow row : salesRollupService.getDailyByAgent(from, to, null)) {
+            invoiceCount += row.invoiceCount();
+            total = total.add(row.total());
+            byStatus.merge(row.status(), row.total(), BigDecimal::add);
+        }
+        return new SalesSummary(invoiceCount, total, byStatus);
+    }
+
+    private AttendanceSummary attendanceSummary(LocalDate from, LocalDate to) {
+        List<AttendanceReportRow> rows = reportService.getAttendanceReport(from, to, null);
+        Map<String, Long> byStatus = new TreeMap<>();
+        long openCheckIns = 0;
+        for (AttendanceReportRow row : rows) {
+            byStatus.merge(row.status() != null ? row.status() : "UNKNOWN", 1L, Long::sum);
+            if (row.checkInTime() != null && row.checkOutTime() == null) {
+                openCheckIns++;
+            }
+        }
+        long agents = rows.stream().map(AttendanceReportRow::agentId).distinct().count();
+        return new AttendanceSummary(rows.size(), agents, openCheckIns, byStatus);
+    }
+
+    private OrdersSummary ordersSummary(LocalDate from, LocalDate to) {
+        BigDecimal amount = BigDecimal.ZERO;
+        Map<String, Long> byStatus = new TreeMap<>();
+        List<OrdersReportRow> rows = reportService.getOrdersReport(from, to, null);
+        for (OrdersReportRow row : rows) {
+            if (row.amount() != null) {
+                amount = amount.add(row.amount());
+            }
+            byStatus.merge(row.status() != null ? row.status() : "UNKNOWN", 1L, Long::sum);
+        }
+        return new OrdersSummary(rows.size(), amount, byStatus);
+    }
+
+    private List<RecentActivity> recentActivity() {
+        return activityRepository.findAllByOrderByOccurredAtDesc(PageRequest.of(0, RECENT_ACTIVITY_LIMIT))
+                .map(this::toRecentActivity)
+                .getContent();
+    }
+
+    private RecentActivity toRecentActivity(Activity activity) {
+        return new RecentActivity(
+                activity.getId(),
+                activity.getAgentId(),
+                activity.getAgentName(),
+                activity.getCustomerName(),
+                activity.getActivity(),
+                activity.getStatus() != null ? activity.getStatus().name() : null,
+                activity.getOccurredAt()
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package com.fieldforcepro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+// Responses of writes sent with an Idempotency-Key, so a client retry replays the stored result
+// instead of repeating the write. Bounded by entry count and expired after a TTL. Only successful
+// responses are kept; a failed attempt can be retried with the same key.
+@Component
+public class IdempotencyStore {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Key(String scope, String key) { }
+
+    // response is null while the first request with this key is still running
+    private record Entry(Object fingerprint, ResponseEntity<?> response, Instant expiresAt) { }
+
+    private final int maxEntries;
+    private final Duration ttl;
+
+    // Insertion-ordered, so iteration starts at the oldest entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256);
+
+    public IdempotencyStore(
+            @Value("${fieldforcepro.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${fieldforcepro.idempotency.ttl:24h}") Duration ttl
+    ) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Runs the action once per (scope, key). A retry with the same fingerprint gets the stored
+     * response, one with a different fingerprint gets 422, and one that overlaps the first
+     * request gets 409. Without a key the action just runs.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object fingerprint,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        Key storeKey = new Key(scope, key);
+        synchronized (this) {
+            Entry entry = entries.get(storeKey);
+            if (entry != null && entry.expiresAt().isBefore(Instant.now())) {
+                entries.remove(storeKey);
+                entry = null;
+            }
+            if (entry != null) {
+                if (!Objects.equals(entry.fingerprint(), fingerprint)) {
+                    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+                }
+                if (entry.response() == null) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                }
+                return replay(entry.response());
+            }
+            entries.put(storeKey, new Entry(fingerprint, null, Instant.now().plus(ttl)));
+            evictOverflow();
+        }
+
+        ResponseEntity<T> response = null;
+        try {
+            response = action.get();
+            return response;
+        } finally {
+            synchronized (this) {
+                if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                    entries.remove(storeKey);
+                    entries.put(storeKey, new Entry(fingerprint, response, Instant.now().plus(ttl)));
+                    evictOverflow();
+                } else {
+                    entries.remove(storeKey);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(ResponseEntity<?> stored) {
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body((T) stored.getBody());
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        Instant now = Instant.now();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entries.size() <= maxEntries && entry.expiresAt().isAfter(now)) {
+                break;
+            }
+            it.remove();
+        }
+    }
+}
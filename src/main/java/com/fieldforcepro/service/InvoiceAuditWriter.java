@@ -0,0 +1,76 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.InvoiceAuditOutbox;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Moves audit events from invoice_audit_outbox to invoice_audit. Each batch is copied with one
+// batched INSERT and removed from the outbox in the same transaction, so an event is written
+// exactly once even if the application stops mid-batch.
+@Component
+public class InvoiceAuditWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceAuditWriter.class);
+
+    private final InvoiceAuditOutboxRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public InvoiceAuditWriter(
+            InvoiceAuditOutboxRepository outboxRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${fieldforcepro.invoices.audit-writer.batch-size:500}") int batchSize
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${fieldforcepro.invoices.audit-writer.interval-ms:1000}")
+    public void drain() {
+        try {
+            int moved;
+            do {
+                moved = flushBatch();
+            } while (moved == batchSize);
+        } catch (RuntimeException e) {
+            // Events stay in the outbox and are retried on the next run
+            log.warn("Invoice audit flush failed: {}", e.getMessage());
+        }
+    }
+
+    public int flushBatch() {
+        Integer moved = transactionTemplate.execute(tx -> {
+            List<InvoiceAuditOutbox> events = outboxRepository.findOldestForUpdate(PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO invoice_audit (invoice_id, action, actor_id, details, created_at) VALUES (?, ?, ?, ?, ?)",
+                    events, events.size(), (ps, event) -> {
+                        ps.setString(1, event.getInvoiceId());
+                        ps.setString(2, event.getAction());
+                        ps.setString(3, event.getActorId());
+                        ps.setString(4, event.getDetails());
+                        ps.setTimestamp(5, Timestamp.from(event.getCreatedAt()));
+                    });
+            outboxRepository.deleteAllByIdInBatch(events.stream().map(InvoiceAuditOutbox::getId).toList());
+            return events.size();
+        });
+        return moved != null ? moved : 0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceAuditOutbox;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies many invoice status changes in one transaction, e.g. marking a bank reconciliation's
+ * invoices as PAID.
+ *
+ * The invoices are locked and read with one query, each target status is written with one
+ * UPDATE and the audit events are added to the outbox as batched inserts, from where
+ * InvoiceAuditWriter moves them like any other invoice event. The bulk UPDATE bypasses entity
+ * listeners, so the sales rollups, cached reports and aging buckets are maintained here.
+ */
+@Service
+public class InvoiceBulkStatusService {
+
+    // Setting the current status again is reported as UNCHANGED rather than rejected
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            "DRAFT", Set.of("SENT", "CANCELLED"),
+            "NEW", Set.of("SENT", "CANCELLED"),
+            "SENT", Set.of("PAID", "CANCELLED")
+    );
+
+    public enum Outcome { UPDATED, UNCHANGED, NOT_FOUND, INVALID_TRANSITION, DUPLICATE }
+
+    public record StatusChange(String id, String status) { }
+
+    public record BulkStatusRequest(String actorId, List<StatusChange> changes) { }
+
+    public record StatusChangeResult(String id, Outcome outcome, String previousStatus, String status) { }
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository itemRepository;
+    private final SalesRollupService salesRollupService;
+    private final ReceivablesAgingService receivablesAging;
+    private final ReportCacheInvalidator reportCacheInvalidator;
+    private final InvoiceAuditOutboxRepository auditOutboxRepository;
+    private final int maxChanges;
+
+    public InvoiceBulkStatusService(
+            InvoiceRepository invoiceRepository,
+            InvoiceItemRepository itemRepository,
+            SalesRollupService salesRollupService,
+            ReceivablesAgingService receivablesAging,
+            ReportCacheInvalidator reportCacheInvalidator,
+            InvoiceAuditOutboxRepository auditOutboxRepository,
+            @Value("${fieldforcepro.invoices.bulk-status.max-changes:1000}") int maxChanges
+    ) {
+        this.invoiceRepository = invoiceRepository;
+        this.itemRepository = itemRepository;
+        this.salesRollupService = salesRollupService;
+        this.receivablesAging = receivablesAging;
+        this.reportCacheInvalidator = reportCacheInvalidator;
+        this.auditOutboxRepository = auditOutboxRepository;
+        this.maxChanges = maxChanges;
+    }
+
+    // One result per requested change, in request order
+    @Transactional
+    public List<StatusChangeResult> apply(BulkStatusRequest request) {
+        if (request == null || request.actorId() == null || request.actorId().isBlank()) {
+            throw new IllegalArgumentException("actorId is required");
+        }
+        List<StatusChange> changes = request.changes();
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("At least one change is required");
+        }
+        if (changes.size() > maxChanges) {
+            throw new IllegalArgumentException("At most " + maxChanges + " changes per request");
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (StatusChange change : changes) {
+            if (change != null && change.id() != null) {
+                ids.add(change.id());
+            }
+        }
+        Map<String, Invoice> invoices = new HashMap<>();
+        for (Invoice invoice : invoiceRepository.findAllByIdForUpdate(ids)) {
+            invoices.put(invoice.getId(), invoice);
+        }
+
+        List<StatusChangeResult> results = new ArrayList<>(changes.size());
+        Map<String, String> targets = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (StatusChange change : changes) {
+            String id = change != null ? change.id() : null;
+            String target = change != null && change.status() != null && !change.status().isBlank()
+                    ? change.status().trim().toUpperCase() : null;
+            Invoice invoice = id != null ? invoices.get(id) : null;
+            if (id != null && !seen.add(id)) {
+                results.add(new StatusChangeResult(id, Outcome.DUPLICATE, null, target));
+            } else if (invoice == null) {
+                results.add(new StatusChangeResult(id, Outcome.NOT_FOUND, null, target));
+            } else if (target == null) {
+                results.add(new StatusChangeResult(id, Outcome.INVALID_TRANSITION, invoice.getStatus(), null));
+            } else if (invoice.getStatus().equalsIgnoreCase(target)) {
+                results.add(new StatusChangeResult(id, Outcome.UNCHANGED, invoice.getStatus(), invoice.getStatus()));
+            } else if (!TRANSITIONS.getOrDefault(invoice.getStatus().toUpperCase(), Set.of()).contains(target)) {
+                results.add(new StatusChangeResult(id, Outcome.INVALID_TRANSITION, invoice.getStatus(), target));
+            } else {
+                targets.put(id, target);
+                results.add(new StatusChangeResult(id, Outcome.UPDATED, invoice.getStatus(), target));
+            }
+        }
+        if (targets.isEmpty()) {
+            return results;
+        }
+
+        Map<String, List<InvoiceItem>> items = new HashMap<>();
+        for (InvoiceItem item : itemRepository.findByInvoiceIdInOrderByIdAsc(targets.keySet())) {
+            items.computeIfAbsent(item.getInvoice().getId(), k -> new ArrayList<>()).add(item);
+        }
+        List<SalesRollupService.Contribution> before = new ArrayList<>(targets.size());
+        List<SalesRollupService.Contribution> after = new ArrayList<>(targets.size());
+        Map<String, List<String>> idsByTarget = new LinkedHashMap<>();
+        Map<LocalDate, Instant> days = new HashMap<>();
+        ZoneId zoneId = ZoneId.systemDefault();
+        targets.forEach((id, target) -> {
+            Invoice invoice = invoices.get(id);
+            SalesRollupService.Contribution contribution =
+                    salesRollupService.contributionOf(invoice, items.getOrDefault(id, List.of()));
+            before.add(contribution);
+            after.add(new SalesRollupService.Contribution(contribution.salesDate(), contribution.agentId(), target,
+                    contribution.subtotal(), contribution.taxAmount(), contribution.total(), contribution.lines()));
+            idsByTarget.computeIfAbsent(target, k -> new ArrayList<>()).add(id);
+            days.putIfAbsent(LocalDate.ofInstant(invoice.getCreatedAt(), zoneId), invoice.getCreatedAt());
+        });
+
+        Instant now = Instant.now();
+        // Clears the persistence context; the loaded invoices are detached from here on
+        idsByTarget.forEach((target, targetIds) -> invoiceRepository.updateStatus(targetIds, target, now));
+        salesRollupService.replaceAll(before, after);
+
+        // Inserted in JDBC batches of hibernate.jdbc.batch_size at flush
+        List<InvoiceAuditOutbox> events = new ArrayList<>(targets.size());
+        targets.forEach((id, target) -> events.add(InvoiceAuditOutbox.builder()
+                .invoiceId(id)
+                .action(target)
+                .actorId(request.actorId())
+                .details("Status changed to " + target + " (bulk)")
+                .createdAt(now)
+                .build()));
+        auditOutboxRepository.saveAll(events);
+
+        targets.forEach((id, target) -> {
+            Invoice invoice = invoices.get(id);
+            invoice.setStatus(target);
+            invoice.setUpdatedAt(now);
+            receivablesAging.onSaved(invoice);
+        });
+        days.values().forEach(day -> reportCacheInvalidator.afterCommit(ReportType.SALES, day));
+        return results;
+    }
+}
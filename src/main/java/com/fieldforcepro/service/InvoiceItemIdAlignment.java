@@ -0,0 +1,58 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Moves the invoice item id generator past ids that were not handed out by it: rows written while
+// invoice_items used an auto-increment id, or by bulk loaders. Runs during startup, before the web
+// server accepts requests, and is idempotent.
+@Component
+public class InvoiceItemIdAlignment {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceItemIdAlignment.class);
+
+    private final InvoiceItemRepository itemRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvoiceItemIdAlignment(InvoiceItemRepository itemRepository, JdbcTemplate jdbcTemplate) {
+        this.itemRepository = itemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void onStartup() {
+        align();
+    }
+
+    public void align() {
+        Long maxId = itemRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        // The pooled optimizer hands out (next_val - allocationSize, next_val], so the stored value
+        // has to be a full block above the highest existing id
+        long target = maxId + InvoiceItem.ID_ALLOCATION_SIZE;
+        int updated = jdbcTemplate.update(
+                "UPDATE " + InvoiceItem.ID_GENERATOR_TABLE + " SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                target, InvoiceItem.ID_GENERATOR_NAME, target);
+        if (updated == 0) {
+            Integer rows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + InvoiceItem.ID_GENERATOR_TABLE + " WHERE sequence_name = ?",
+                    Integer.class, InvoiceItem.ID_GENERATOR_NAME);
+            if (rows == null || rows == 0) {
+                jdbcTemplate.update(
+                        "INSERT INTO " + InvoiceItem.ID_GENERATOR_TABLE + " (sequence_name, next_val) VALUES (?, ?)",
+                        InvoiceItem.ID_GENERATOR_NAME, target);
+                updated = 1;
+            }
+        }
+        if (updated > 0) {
+            log.info("Invoice item id generator moved to {}", target);
+        }
+    }
+}
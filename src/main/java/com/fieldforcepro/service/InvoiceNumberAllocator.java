@@ -0,0 +1,115 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.InvoiceNumberSequence;
+import com.fieldforcepro.repository.InvoiceNumberSequenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out invoice numbers per year with a hi/lo scheme.
+ *
+ * Each instance reserves a block of numbers by advancing the year's row in invoice_number_sequences
+ * under a row lock, in its own short transaction, then serves the block from memory. Numbers are
+ * unique across instances; unused numbers of a block are lost on restart, so the sequence may have
+ * gaps but never repeats.
+ *
+ * Reservations need a connection of their own, so callers must not hold one while asking for a
+ * number (InvoiceService.createInvoice takes it before its write transaction). Only a refill of the
+ * same year waits on the reservation; numbers already in memory and other years are served meanwhile.
+ */
+@Service
+public class InvoiceNumberAllocator {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private static final class Block {
+        // Held while the year's next block is reserved, so one caller reserves and the rest reuse it
+        private final ReentrantLock refill = new ReentrantLock();
+        private long next;
+        private long limit;
+
+        // -1 when the block is used up
+        synchronized long take() {
+            return next < limit ? next++ : -1;
+        }
+
+        synchronized long install(long first, int size) {
+            next = first + 1;
+            limit = first + size;
+            return first;
+        }
+    }
+
+    private final InvoiceNumberSequenceRepository sequenceRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+    private final ConcurrentMap<Integer, Block> blocks = new ConcurrentHashMap<>();
+
+    public InvoiceNumberAllocator(InvoiceNumberSequenceRepository sequenceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${fieldforcepro.invoices.number-block-size:20}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.blockSize = blockSize;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        // Never extend the caller's transaction: the row lock is held only for the reservation
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long next(int year) {
+        Block block = blocks.computeIfAbsent(year, y -> new Block());
+        long number = block.take();
+        if (number >= 0) {
+            return number;
+        }
+        block.refill.lock();
+        try {
+            // Refilled by another caller while this one waited
+            number = block.take();
+            if (number >= 0) {
+                return number;
+            }
+            return block.install(reserve(year), blockSize);
+        } finally {
+            block.refill.unlock();
+        }
+    }
+
+    // Returns the first number of a freshly reserved block
+    private long reserve(int year) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long start = reserveTransaction.execute(tx -> {
+                    InvoiceNumberSequence sequence = sequenceRepository.findForUpdate(year).orElse(null);
+                    if (sequence == null) {
+                        // First number of the year; a concurrent insert by another instance fails on the
+                        // primary key and the reservation is retried against the committed row
+                        sequenceRepository.saveAndFlush(InvoiceNumberSequence.builder()
+                                .year(year)
+                                .nextValue(1L + blockSize)
+                                .build());
+                        return 1L;
+                    }
+                    long first = sequence.getNextValue();
+                    sequence.setNextValue(first + blockSize);
+                    return first;
+                });
+                return start;
+            } catch (DataIntegrityViolationException | TransientDataAccessException e) {
+                // Also covers deadlocks and lock wait timeouts between the FOR UPDATE of a missing
+                // row and the insert of the new year's row by two instances
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
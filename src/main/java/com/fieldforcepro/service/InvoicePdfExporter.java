@@ -0,0 +1,189 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the PDFs of every invoice in a date range as one ZIP archive.
+ *
+ * Invoices are read in keyset pages, each in its own short read-only transaction. Uploaded PDFs
+ * are copied as STORED entries (they are already compressed), streaming the file twice: once for
+ * the CRC and size the STORED header needs, once for the data. Invoices without a stored PDF are
+ * rendered on InvoicePdfRenderer's pool while the page's stored files are written. At most one
+ * page of rendered documents is held in memory, whatever the size of the range.
+ */
+@Service
+public class InvoicePdfExporter {
+
+    private static final int PAGE_SIZE = 32;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository itemRepository;
+    private final InvoicePdfRenderer pdfRenderer;
+    private final UploadPaths uploadPaths;
+    private final TransactionTemplate readTransaction;
+
+    public InvoicePdfExporter(InvoiceRepository invoiceRepository,
+                              InvoiceItemRepository itemRepository,
+                              InvoicePdfRenderer pdfRenderer,
+                              UploadPaths uploadPaths,
+                              PlatformTransactionManager transactionManager) {
+        this.invoiceRepository = invoiceRepository;
+        this.itemRepository = itemRepository;
+        this.pdfRenderer = pdfRenderer;
+        this.uploadPaths = uploadPaths;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    // One archive entry: either an uploaded file or a PDF being rendered
+    private record Entry(Invoice invoice, List<InvoiceItem> items, Path storedFile, CompletableFuture<byte[]> rendering) { }
+
+    public void exportZip(LocalDate from, LocalDate to, String agentId, OutputStream out) throws IOException {
+        ZoneId zoneId = ZoneId.systemDefault();
+        Instant end = to.plusDays(1).atStartOfDay(zoneId).toInstant();
+        String agentFilter = agentId == null || agentId.isBlank() ? null : agentId;
+        KeysetCursor position = new KeysetCursor(from.atStartOfDay(zoneId).toInstant(), "");
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        while (true) {
+            KeysetCursor after = position;
+            List<Entry> entries = readTransaction.execute(tx -> loadPage(after, end, agentFilter));
+            if (entries == null || entries.isEmpty()) {
+                break;
+            }
+            for (Entry entry : entries) {
+                String name = entryName(entry.invoice());
+                if (entry.storedFile() != null) {
+                    writeStoredFile(zip, name, entry.storedFile(), buffer);
+                } else {
+                    writeStoredBytes(zip, name, rendered(entry));
+                }
+            }
+            Invoice last = entries.get(entries.size() - 1).invoice();
+            position = new KeysetCursor(last.getCreatedAt(), last.getId());
+            if (entries.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private List<Entry> loadPage(KeysetCursor after, Instant end, String agentId) {
+        List<Invoice> invoices = invoiceRepository.findPageAfter(
+                after.after(), after.afterId(), end, agentId, PageRequest.of(0, PAGE_SIZE));
+        Map<String, Path> storedFiles = new HashMap<>();
+        List<String> toRender = new ArrayList<>();
+        for (Invoice invoice : invoices) {
+            Optional<Path> stored = uploadPaths.resolve(invoice.getInvoicePdfUrl());
+            if (stored.isPresent()) {
+                storedFiles.put(invoice.getId(), stored.get());
+            } else {
+                toRender.add(invoice.getId());
+            }
+        }
+        Map<String, List<InvoiceItem>> items = new HashMap<>();
+        if (!toRender.isEmpty()) {
+            for (InvoiceItem item : itemRepository.findByInvoiceIdInOrderByIdAsc(toRender)) {
+                items.computeIfAbsent(item.getInvoice().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(invoices.size());
+        for (Invoice invoice : invoices) {
+            Path stored = storedFiles.get(invoice.getId());
+            if (stored != null) {
+                entries.add(new Entry(invoice, null, stored, null));
+            } else {
+                List<InvoiceItem> invoiceItems = items.getOrDefault(invoice.getId(), List.of());
+                entries.add(new Entry(invoice, invoiceItems, null, pdfRenderer.render(invoice, invoiceItems)));
+            }
+        }
+        return entries;
+    }
+
+    // Falls back to rendering on the exporting thread when the shared pool is saturated
+    private byte[] rendered(Entry entry) {
+        try {
+            return entry.rendering().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return pdfRenderer.renderDirect(entry.invoice(), entry.items());
+            }
+            throw e;
+        }
+    }
+
+    private void writeStoredFile(ZipOutputStream zip, String name, Path file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        zip.putNextEntry(storedEntry(name, size, crc.getValue()));
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                zip.write(buffer, 0, read);
+            }
+        }
+        zip.closeEntry();
+    }
+
+    private void writeStoredBytes(ZipOutputStream zip, String name, byte[] pdf) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(pdf);
+        zip.putNextEntry(storedEntry(name, pdf.length, crc.getValue()));
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    private ZipEntry storedEntry(String name, long size, long crc) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+        return entry;
+    }
+
+    // Invoice numbers are unique; the id keeps names unique for rows without one
+    private String entryName(Invoice invoice) {
+        String base = invoice.getInvoiceNo() != null && !invoice.getInvoiceNo().isBlank()
+                ? invoice.getInvoiceNo() : invoice.getId();
+        return base.replaceAll("[^A-Za-z0-9._-]", "_") + ".pdf";
+    }
+}
@@ -0,0 +1,393 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders invoice PDFs on the server from the invoice, its items and the company/bank snapshot.
+ *
+ * Fonts are created once per JVM. Logo/stamp images are kept per URL in a small LRU cache and
+ * reloaded after image-ttl, so a replaced upload shows up without a restart. Rendered documents
+ * are kept in an LRU cache keyed by (invoiceId, updatedAt), so a changed invoice gets a new entry
+ * and stale PDFs are never served. Rendering runs on a bounded pool sized to the CPU count; concurrent
+ * requests for the same document share one render.
+ */
+@Service
+public class InvoicePdfRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfRenderer.class);
+
+    private static final BaseFont REGULAR = baseFont(BaseFont.HELVETICA);
+    private static final BaseFont BOLD = baseFont(BaseFont.HELVETICA_BOLD);
+    private static final Font TITLE_FONT = new Font(BOLD, 16);
+    private static final Font HEADING_FONT = new Font(BOLD, 10);
+    private static final Font TEXT_FONT = new Font(REGULAR, 9);
+    private static final Font SMALL_FONT = new Font(REGULAR, 8);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final String[] ITEM_HEADERS = {"#", "Item", "SKU", "Qty", "Unit price", "Discount", "Tax", "Amount"};
+    private static final float[] ITEM_WIDTHS = {4, 30, 12, 6, 12, 11, 11, 14};
+    private static final int MAX_CACHED_IMAGES = 64;
+
+    private record CachedImage(Optional<Image> image, Instant expiresAt) { }
+
+    public record RenderKey(String invoiceId, Instant updatedAt) {
+        public static RenderKey of(Invoice invoice) {
+            return new RenderKey(invoice.getId(), invoice.getUpdatedAt().truncatedTo(ChronoUnit.MICROS));
+        }
+    }
+
+    private final InvoiceService invoiceService;
+    private final UploadPaths uploadPaths;
+    private final long cacheMaxBytes;
+    private final Duration imageTtl;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final ThreadPoolExecutor executor;
+
+    private final LinkedHashMap<RenderKey, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    private final Map<RenderKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, CachedImage> images = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedImage> eldest) {
+            return size() > MAX_CACHED_IMAGES;
+        }
+    };
+
+    public InvoicePdfRenderer(
+            InvoiceService invoiceService,
+            UploadPaths uploadPaths,
+            @Value("${fieldforcepro.invoices.pdf.threads:0}") int threads,
+            @Value("${fieldforcepro.invoices.pdf.queue-capacity:256}") int queueCapacity,
+            @Value("${fieldforcepro.invoices.pdf.cache-max-bytes:67108864}") long cacheMaxBytes,
+            @Value("${fieldforcepro.invoices.pdf.image-ttl:5m}") Duration imageTtl
+    ) {
+        this.invoiceService = invoiceService;
+        this.uploadPaths = uploadPaths;
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.imageTtl = imageTtl;
+
+        // Rendering is CPU bound: one thread per core unless configured
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-pdf-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // updatedAt comes from InvoiceService.findUpdatedAt, so a cache hit needs no further reads.
+    // Empty when the invoice no longer exists; the future fails with RejectedExecutionException
+    // when the render queue is full.
+    public Optional<CompletableFuture<byte[]>> render(String invoiceId, Instant updatedAt) {
+        byte[] cached = cached(new RenderKey(invoiceId, updatedAt.truncatedTo(ChronoUnit.MICROS)));
+        if (cached != null) {
+            return Optional.of(CompletableFuture.completedFuture(cached));
+        }
+        // A miss is one query: the PDF has no use for the audit trail that getDetail also reads
+        return invoiceService.findWithItems(invoiceId)
+                .map(invoice -> render(invoice, List.copyOf(invoice.getItems())));
+    }
+
+    // The invoice and items must be fully loaded; they are read on a pool thread
+    public CompletableFuture<byte[]> render(Invoice invoice, List<InvoiceItem> items) {
+        RenderKey key = RenderKey.of(invoice);
+        byte[] cached = cached(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<byte[]> created = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    byte[] pdf = renderNow(invoice, items);
+                    store(key, pdf);
+                    created.complete(pdf);
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    // Renders on the calling thread, for callers that cannot wait for pool capacity
+    public byte[] renderDirect(Invoice invoice, List<InvoiceItem> items) {
+        RenderKey key = RenderKey.of(invoice);
+        byte[] pdf = cached(key);
+        if (pdf == null) {
+            pdf = renderNow(invoice, items);
+            store(key, pdf);
+        }
+        return pdf;
+    }
+
+    public synchronized byte[] cached(RenderKey key) {
+        return cache.get(key);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void store(RenderKey key, byte[] pdf) {
+        if (pdf.length > cacheMaxBytes / 4) {
+            return;
+        }
+        byte[] previous = cache.put(key, pdf);
+        cachedBytes += pdf.length - (previous != null ? previous.length : 0);
+        Iterator<byte[]> eldest = cache.values().iterator();
+        while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] renderNow(Invoice invoice, List<InvoiceItem> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+        PdfWriter.getInstance(document, out);
+        document.open();
+
+        PdfPTable header = table(new float[]{70, 30});
+        PdfPCell company = cell();
+        company.addElement(new Paragraph(text(invoice.getCompanyName()), TITLE_FONT));
+        addLine(company, invoice.getCompanyAddress(), null);
+        addLine(company, invoice.getCompanyGst(), "GSTIN: ");
+        addLine(company, invoice.getCompanyMobile(), "Phone: ");
+        addLine(company, invoice.getCompanyEmail(), "Email: ");
+        header.addCell(company);
+        header.addCell(imageCell(invoice.getCompanyLogoUrl(), 120, 60));
+        document.add(header);
+
+        PdfPTable meta = table(new float[]{50, 50});
+        PdfPCell billedTo = cell();
+        billedTo.addElement(new Paragraph("Billed to", HEADING_FONT));
+        addLine(billedTo, invoice.getCustomerName(), null);
+        addLine(billedTo, invoice.getCustomerAddress(), null);
+        addLine(billedTo, invoice.getCustomerGst(), "GSTIN: ");
+        addLine(billedTo, invoice.getCustomerMobile(), "Phone: ");
+        addLine(billedTo, invoice.getCustomerEmail(), "Email: ");
+        meta.addCell(billedTo);
+        PdfPCell details = cell();
+        details.addElement(new Paragraph("TAX INVOICE", HEADING_FONT));
+        addLine(details, invoice.getInvoiceNo(), "Invoice No: ");
+        addLine(details, date(invoice.getInvoiceDate()), "Date: ");
+        addLine(details, date(invoice.getDueDate()), "Due: ");
+        addLine(details, invoice.getStatus(), "Status: ");
+        addLine(details, invoice.getAgentName(), "Sales agent: ");
+        meta.addCell(details);
+        meta.setSpacingBefore(12);
+        document.add(meta);
+
+        PdfPTable lines = new PdfPTable(ITEM_WIDTHS);
+        lines.setWidthPercentage(100);
+        lines.setSpacingBefore(12);
+        lines.setHeaderRows(1);
+        for (String heading : ITEM_HEADERS) {
+            lines.addCell(new PdfPCell(new Phrase(heading, HEADING_FONT)));
+        }
+        int n = 0;
+        for (InvoiceItem item : items) {
+            lines.addCell(new Phrase(String.valueOf(++n), TEXT_FONT));
+            lines.addCell(new Phrase(text(item.getName()), TEXT_FONT));
+            lines.addCell(new Phrase(text(item.getSku()), TEXT_FONT));
+            lines.addCell(amountCell(String.valueOf(item.getQuantity())));
+            lines.addCell(amountCell(money(item.getUnitPrice())));
+            lines.addCell(amountCell(money(item.getDiscount())));
+            lines.addCell(amountCell(money(item.getTax())));
+            lines.addCell(amountCell(money(item.getLineTotal())));
+        }
+        document.add(lines);
+
+        String currency = invoice.getCurrency() != null ? invoice.getCurrency() + " " : "";
+        PdfPTable totals = new PdfPTable(new float[]{70, 30});
+        totals.setWidthPercentage(45);
+        totals.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        totals.setSpacingBefore(8);
+        totalRow(totals, "Subtotal", money(invoice.getSubtotal()), TEXT_FONT);
+        totalRow(totals, "Discount", money(invoice.getTotalDiscount()), TEXT_FONT);
+        totalRow(totals, "Tax", money(invoice.getTaxAmount()), TEXT_FONT);
+        totalRow(totals, "Shipping", money(invoice.getShipping()), TEXT_FONT);
+        totalRow(totals, "Total", currency + money(invoice.getTotal()), HEADING_FONT);
+        document.add(totals);
+
+        PdfPTable footer = table(new float[]{70, 30});
+        footer.setSpacingBefore(16);
+        PdfPCell payment = cell();
+        if (invoice.getBankName() != null || invoice.getUpiId() != null) {
+            payment.addElement(new Paragraph("Payment details", HEADING_FONT));
+            addLine(payment, invoice.getBankName(), "Bank: ");
+            addLine(payment, invoice.getBankHolderName(), "Account name: ");
+            addLine(payment, invoice.getBankAccountNumber(), "Account no: ");
+            addLine(payment, invoice.getIfscCode(), "IFSC: ");
+            addLine(payment, invoice.getAccountType(), "Account type: ");
+            addLine(payment, invoice.getUpiId(), "UPI: ");
+        }
+        addLine(payment, invoice.getPaymentTerms(), "Payment terms: ");
+        addLine(payment, invoice.getNotes(), "Notes: ");
+        footer.addCell(payment);
+        footer.addCell(imageCell(invoice.getCompanyStampUrl(), 100, 100));
+        document.add(footer);
+
+        if (invoice.getTermsAndConditions() != null && !invoice.getTermsAndConditions().isBlank()) {
+            Paragraph terms = new Paragraph("Terms & conditions", HEADING_FONT);
+            terms.setSpacingBefore(12);
+            document.add(terms);
+            document.add(new Paragraph(invoice.getTermsAndConditions(), SMALL_FONT));
+        }
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private PdfPCell imageCell(String url, float width, float height) {
+        PdfPCell cell = cell();
+        Optional<Image> image = image(url);
+        if (image.isPresent()) {
+            // Copies share the decoded image data; only the scaling is per document
+            Image copy = Image.getInstance(image.get());
+            copy.scaleToFit(width, height);
+            copy.setAlignment(Element.ALIGN_RIGHT);
+            cell.addElement(copy);
+        }
+        return cell;
+    }
+
+    // Only files under the local uploads directory are read; other URLs are skipped. Missing or
+    // unreadable files are cached as empty for the same TTL.
+    private Optional<Image> image(String url) {
+        if (url == null) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        synchronized (images) {
+            CachedImage cached = images.get(url);
+            if (cached != null && cached.expiresAt().isAfter(now)) {
+                return cached.image();
+            }
+        }
+        // Loaded outside the lock; two threads may both load a new URL, the last one wins
+        Optional<Image> loaded = Optional.empty();
+        Optional<Path> path = uploadPaths.resolve(url);
+        if (path.isPresent()) {
+            try {
+                loaded = Optional.of(Image.getInstance(Files.readAllBytes(path.get())));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot load invoice image {}: {}", url, e.getMessage());
+            }
+        }
+        synchronized (images) {
+            images.put(url, new CachedImage(loaded, now.plus(imageTtl)));
+        }
+        return loaded;
+    }
+
+    private void addLine(PdfPCell cell, String value, String label) {
+        if (value != null && !value.isBlank()) {
+            cell.addElement(new Paragraph((label != null ? label : "") + value, TEXT_FONT));
+        }
+    }
+
+    private void totalRow(PdfPTable table, String label, String value, Font font) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, font));
+        labelCell.setBorder(Rectangle.NO_BORDER);
+        table.addCell(labelCell);
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, font));
+        valueCell.setBorder(Rectangle.NO_BORDER);
+        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(valueCell);
+    }
+
+    private PdfPCell amountCell(String value) {
+        PdfPCell cell = new PdfPCell(new Phrase(value, TEXT_FONT));
+        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        return cell;
+    }
+
+    private PdfPTable table(float[] widths) {
+        PdfPTable table = new PdfPTable(widths);
+        table.setWidthPercentage(100);
+        return table;
+    }
+
+    private PdfPCell cell() {
+        PdfPCell cell = new PdfPCell();
+        cell.setBorder(Rectangle.NO_BORDER);
+        return cell;
+    }
+
+    private String date(Instant instant) {
+        return instant != null ? DATE_FORMAT.format(instant.atZone(zoneId)) : null;
+    }
+
+    private static String money(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP).toPlainString() : "0.00";
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+
+    private static BaseFont baseFont(String name) {
+        try {
+            return BaseFont.createFont(name, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load PDF font " + name, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.fieldforcepro.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Writes uploaded invoice PDFs under uploads/invoices. The upload is streamed to a temp file in the
+// same directory while its SHA-256 is computed, then moved atomically to a name derived from the
+// invoice id and the hash, so a re-upload of the same bytes finds the file already in place.
+@Component
+public class InvoicePdfUploads {
+
+    private static final String SUBDIRECTORY = "invoices";
+
+    private final UploadPaths uploadPaths;
+    private final Path directory;
+
+    public InvoicePdfUploads(UploadPaths uploadPaths) {
+        this.uploadPaths = uploadPaths;
+        this.directory = uploadPaths.root().resolve(SUBDIRECTORY);
+    }
+
+    // created is false when an identical file was already stored for this invoice
+    public record StoredPdf(String url, Path path, String sha256, long size, boolean created) { }
+
+    public StoredPdf store(String invoiceId, MultipartFile file) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = directory.resolve(invoiceId + "-" + hash + ".pdf");
+            boolean created = false;
+            if (!Files.exists(target)) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                created = true;
+            }
+            return new StoredPdf(uploadPaths.urlOf(target), target, hash, size, created);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.service.InvoiceService.InvoiceItemPayload;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recomputes invoice lines and totals on the server instead of trusting the client.
+ *
+ * A line's unit price comes from the catalog when it has a productId. Tax is the product's GST
+ * rate applied to gross minus discount, rounded half up to the paisa. All arithmetic is done on
+ * long paise, and BigDecimals are only created for the results. In VALIDATE mode a client value
+ * that differs from the computed one rejects the invoice. In AUTO_FILL mode computed values
+ * replace client values. Missing values are filled in both modes. OFF keeps the client values.
+ */
+@Component
+public class InvoicePricingEngine {
+
+    public enum Mode { OFF, VALIDATE, AUTO_FILL }
+
+    public record PricedInvoice(
+            List<InvoiceItemPayload> items,
+            BigDecimal subtotal,
+            BigDecimal totalDiscount,
+            BigDecimal taxAmount,
+            BigDecimal shipping,
+            BigDecimal total
+    ) { }
+
+    private final ProductPriceCache priceCache;
+    private final Mode mode;
+
+    public InvoicePricingEngine(ProductPriceCache priceCache,
+                                @Value("${fieldforcepro.invoices.pricing.mode:AUTO_FILL}") Mode mode) {
+        this.priceCache = priceCache;
+        this.mode = mode;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public PricedInvoice price(InvoicePayload payload) {
+        List<InvoiceItemPayload> items = payload.items() != null ? payload.items() : List.of();
+        if (mode == Mode.OFF) {
+            return new PricedInvoice(items, nullSafe(payload.subtotal()), nullSafe(payload.totalDiscount()),
+                    nullSafe(payload.taxAmount()), nullSafe(payload.shipping()), nullSafe(payload.total()));
+        }
+        try {
+            return compute(payload, items, priceCache.current());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range", e);
+        }
+    }
+
+    private PricedInvoice compute(InvoicePayload payload, List<InvoiceItemPayload> items,
+                                  ProductPriceCache.Prices prices) {
+        List<InvoiceItemPayload> priced = new ArrayList<>(items.size());
+        long subtotal = 0;
+        long discountTotal = 0;
+        long taxTotal = 0;
+        for (int n = 0; n < items.size(); n++) {
+            InvoiceItemPayload item = items.get(n);
+            int line = n + 1;
+            ProductPriceCache.ProductPrice product = null;
+            if (item.productId() != null) {
+                product = prices.get(item.productId());
+                if (product == null) {
+                    throw new IllegalArgumentException("Line " + line + ": unknown product " + item.productId());
+                }
+            }
+
+            long unitPrice;
+            if (product != null) {
+                unitPrice = product.pricePaise();
+                check(line, "unitPrice", item.unitPrice(), unitPrice);
+            } else if (item.unitPrice() != null) {
+                unitPrice = paise(item.unitPrice());
+            } else {
+                throw new IllegalArgumentException("Line " + line + ": unitPrice is required without a productId");
+            }
+            int quantity = item.quantity() != null ? item.quantity() : 0;
+            if (quantity < 0) {
+                throw new IllegalArgumentException("Line " + line + ": quantity cannot be negative");
+            }
+            long gross = Math.multiplyExact(unitPrice, quantity);
+            long discount = item.discount() != null ? paise(item.discount()) : 0;
+            if (discount < 0 || discount > gross) {
+                throw new IllegalArgumentException("Line " + line + ": discount must be between 0 and the line amount");
+            }
+            int rate = product != null ? product.gstBasisPoints() : prices.defaultGstBasisPoints();
+            long tax = (Math.multiplyExact(gross - discount, rate) + 5_000) / 10_000;
+            long lineTotal = gross - discount + tax;
+            check(line, "tax", item.tax(), tax);
+            check(line, "lineTotal", item.lineTotal(), lineTotal);
+
+            subtotal += gross;
+            discountTotal += discount;
+            taxTotal += tax;
+            priced.add(new InvoiceItemPayload(
+                    item.id(),
+                    item.productId(),
+                    item.name() != null || product == null ? item.name() : product.name(),
+                    item.sku() != null || product == null ? item.sku() : product.sku(),
+                    money(unitPrice),
+                    quantity,
+                    money(discount),
+                    money(tax),
+                    money(lineTotal)
+            ));
+        }
+
+        long shipping = payload.shipping() != null ? paise(payload.shipping()) : 0;
+        if (shipping < 0) {
+            throw new IllegalArgumentException("Shipping cannot be negative");
+        }
+        long total = subtotal - discountTotal + taxTotal + shipping;
+        check(0, "subtotal", payload.subtotal(), subtotal);
+        check(0, "totalDiscount", payload.totalDiscount(), discountTotal);
+        check(0, "taxAmount", payload.taxAmount(), taxTotal);
+        check(0, "total", payload.total(), total);
+        return new PricedInvoice(priced, money(subtotal), money(discountTotal), money(taxTotal),
+                money(shipping), money(total));
+    }
+
+    // Only VALIDATE rejects; line 0 is the invoice itself
+    private void check(int line, String field, BigDecimal given, long computed) {
+        if (mode != Mode.VALIDATE || given == null || paise(given) == computed) {
+            return;
+        }
+        throw new IllegalArgumentException((line > 0 ? "Line " + line + ": " : "") + field + " " +
+                given.toPlainString() + " does not match computed " + money(computed).toPlainString());
+    }
+
+    private static long paise(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal money(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    private static BigDecimal nullSafe(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
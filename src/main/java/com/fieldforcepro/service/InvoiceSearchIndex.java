@@ -0,0 +1,93 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.repository.InvoiceRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Maintains the MySQL FULLTEXT index behind invoice search. JPA cannot declare FULLTEXT indexes, so
+// it is created at startup when missing. The ngram parser indexes every run of ngram_token_size
+// characters, which lets partial invoice numbers, GST numbers and mobile numbers match. On other
+// databases search falls back to a LIKE scan.
+@Component
+public class InvoiceSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceSearchIndex.class);
+
+    public static final String INDEX_NAME = "ft_invoices_search";
+
+    private final InvoiceRepository invoiceRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean fullTextAvailable;
+    private volatile int ngramTokenSize = 2;
+
+    public InvoiceSearchIndex(InvoiceRepository invoiceRepository, JdbcTemplate jdbcTemplate) {
+        this.invoiceRepository = invoiceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void onStartup() {
+        ensureIndex();
+    }
+
+    public void ensureIndex() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(product)) {
+            log.info("Invoice search uses LIKE matching on {}", product);
+            return;
+        }
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics " +
+                            "WHERE table_schema = DATABASE() AND table_name = 'invoices' AND index_name = ?",
+                    Integer.class, INDEX_NAME);
+            if (existing == null || existing == 0) {
+                jdbcTemplate.execute("CREATE FULLTEXT INDEX " + INDEX_NAME +
+                        " ON invoices (invoice_no, customer_name, customer_gst, customer_mobile) WITH PARSER ngram");
+                log.info("Created full-text index {} on invoices", INDEX_NAME);
+            }
+            Integer tokenSize = jdbcTemplate.queryForObject("SELECT @@ngram_token_size", Integer.class);
+            if (tokenSize != null && tokenSize > 0) {
+                ngramTokenSize = tokenSize;
+            }
+            fullTextAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("Invoice full-text index unavailable, search uses LIKE matching: {}", e.getMessage());
+        }
+    }
+
+    public boolean fullTextAvailable() {
+        return fullTextAvailable;
+    }
+
+    /**
+     * Boolean-mode query requiring every whitespace-separated term. A term is searched as an ngram
+     * phrase, so it matches anywhere in a column; a term shorter than one ngram matches ngrams
+     * starting with it. Empty when no term is left after removing quotes.
+     */
+    public String booleanQuery(String text) {
+        List<String> parts = new ArrayList<>();
+        for (String term : text.trim().split("\\s+")) {
+            String cleaned = term.replace("\"", "");
+            if (cleaned.codePointCount(0, cleaned.length()) >= ngramTokenSize) {
+                parts.add("+\"" + cleaned + "\"");
+            } else {
+                String word = cleaned.replaceAll("[^\\p{L}\\p{N}]", "");
+                if (!word.isEmpty()) {
+                    parts.add("+" + word + "*");
+                }
+            }
+        }
+        return String.join(" ", parts);
+    }
+}
@@ -1,40 +1,92 @@
 package com.fieldforcepro.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fieldforcepro.model.Invoice;
 import com.fieldforcepro.model.InvoiceAudit;
+import com.fieldforcepro.model.InvoiceAuditOutbox;
 import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
 import com.fieldforcepro.repository.InvoiceAuditRepository;
+import com.fieldforcepro.repository.InvoiceAuditRepository.AuditTrailLine;
 import com.fieldforcepro.repository.InvoiceItemRepository;
 import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.InvoiceRepository.InvoiceSummaryLine;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class InvoiceService {
 
+    private static final int CUSTOMER_NAME_MAX_LENGTH = 255;
+
     private final InvoiceRepository invoiceRepository;
     private final InvoiceItemRepository itemRepository;
     private final InvoiceAuditRepository auditRepository;
+    private final InvoiceAuditOutboxRepository auditOutboxRepository;
+    private final SalesRollupService salesRollupService;
+    private final ObjectMapper objectMapper;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final InvoicePdfUploads pdfUploads;
+    private final ReceivablesAgingService receivablesAging;
+    private final InvoiceSearchIndex searchIndex;
+    private final InvoicePricingEngine pricingEngine;
+    private final TransactionTemplate writeTransaction;
 
     public InvoiceService(InvoiceRepository invoiceRepository,
                           InvoiceItemRepository itemRepository,
-                          InvoiceAuditRepository auditRepository) {
+                          InvoiceAuditRepository auditRepository,
+                          InvoiceAuditOutboxRepository auditOutboxRepository,
+                          SalesRollupService salesRollupService,
+                          ObjectMapper objectMapper,
+                          InvoiceNumberAllocator invoiceNumberAllocator,
+                          InvoicePdfUploads pdfUploads,
+                          ReceivablesAgingService receivablesAging,
+                          InvoiceSearchIndex searchIndex,
+                          InvoicePricingEngine pricingEngine,
+                          PlatformTransactionManager transactionManager) {
         this.invoiceRepository = invoiceRepository;
         this.itemRepository = itemRepository;
         this.auditRepository = auditRepository;
+        this.auditOutboxRepository = auditOutboxRepository;
+        this.salesRollupService = salesRollupService;
+        this.objectMapper = objectMapper;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.pdfUploads = pdfUploads;
+        this.receivablesAging = receivablesAging;
+        this.searchIndex = searchIndex;
+        this.pricingEngine = pricingEngine;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
-    public record InvoiceItemPayload(Long productId,
+    // id is the InvoiceItem id when editing an existing line; null for new lines
+    public record InvoiceItemPayload(Long id,
+                                     Long productId,
                                      String name,
                                      String sku,
                                      BigDecimal unitPrice,
@@ -100,9 +152,17 @@ public class InvoiceService {
             String invoicePdfUrl,
 
             Instant invoiceDate,
-            Instant dueDate
+            Instant dueDate,
+
+            // Version the client last read; null skips the check
+            Long version
     ) { }
 
+    public record InvoiceDetail(Invoice invoice, List<InvoiceItem> items, List<InvoiceAudit> audit) { }
+
+    // nextCursor is null on the last page
+    public record InvoiceCursorPage<T>(List<T> content, String nextCursor) { }
+
     public record InvoiceSummary(
             String id,
             String invoiceNo,
@@ -113,9 +173,11 @@ public class InvoiceService {
             Instant createdAt
     ) { }
 
-    @Transactional
+    // Not @Transactional: the invoice number is taken before the write transaction opens, so a block
+    // reservation (its own transaction) never needs a second connection while this thread holds one
     public Invoice createInvoice(InvoicePayload payload) {
         validatePayload(payload);
+        InvoicePricingEngine.PricedInvoice priced = pricingEngine.price(payload);
 
         String invoiceNo = generateInvoiceNumber();
 
@@ -125,6 +187,7 @@ public class InvoiceService {
                 .createdBy(payload.createdBy())
                 .customerId(payload.customerId())
                 .customerSnapshotJson(payload.customerSnapshotJson())
+                .customerName(extractCustomerName(payload.customerSnapshotJson()))
 
                 .companyName(payload.companyName())
                 .companyAddress(payload.companyAddress())
@@ -145,11 +208,11 @@ public class InvoiceService {
                 .customerMobile(payload.customerMobile())
                 .customerEmail(payload.customerEmail())
 
-                .subtotal(nullSafe(payload.subtotal()))
-                .totalDiscount(nullSafe(payload.totalDiscount()))
-                .taxAmount(nullSafe(payload.taxAmount()))
-                .shipping(nullSafe(payload.shipping()))
-                .total(nullSafe(payload.total()))
+                .subtotal(priced.subtotal())
+                .totalDiscount(priced.totalDiscount())
+                .taxAmount(priced.taxAmount())
+                .shipping(priced.shipping())
+                .total(priced.total())
                 .currency(payload.currency() != null ? payload.currency() : "INR")
                 .status(payload.status() != null ? payload.status() : "DRAFT")
                 .notes(payload.notes())
@@ -172,27 +235,18 @@ public class InvoiceService {
                 .dueDate(payload.dueDate())
                 .build();
 
-        Invoice saved = invoiceRepository.save(invoice);
-
-        if (payload.items() != null) {
-            for (InvoiceItemPayload item : payload.items()) {
-                InvoiceItem entity = InvoiceItem.builder()
-                        .invoice(saved)
-                        .productId(item.productId())
-                        .name(item.name())
-                        .sku(item.sku())
-                        .unitPrice(nullSafe(item.unitPrice()))
-                        .quantity(item.quantity() != null ? item.quantity() : 0)
-                        .discount(nullSafe(item.discount()))
-                        .tax(nullSafe(item.tax()))
-                        .lineTotal(nullSafe(item.lineTotal()))
-                        .build();
-                itemRepository.save(entity);
-            }
+        for (InvoiceItemPayload item : priced.items()) {
+            invoice.getItems().add(toItem(invoice, item));
         }
-
-        audit("CREATED", saved, payload.createdBy(), "Invoice created");
-        return saved;
+        return writeTransaction.execute(tx -> {
+            // Items are persisted by cascade and inserted as one JDBC batch at flush
+            Invoice saved = invoiceRepository.save(invoice);
+            salesRollupService.add(salesRollupService.contributionOf(saved, saved.getItems()));
+            receivablesAging.onSaved(saved);
+
+            audit("CREATED", saved, payload.createdBy(), "Invoice created");
+            return saved;
+        });
     }
 
     @Transactional
@@ -202,16 +256,21 @@ public class InvoiceService {
             return Optional.empty();
         }
         Invoice existing = existingOpt.get();
+        checkVersion(existing, payload.version());
         if (!"DRAFT".equalsIgnoreCase(existing.getStatus()) &&
                 !"NEW".equalsIgnoreCase(existing.getStatus())) {
             throw new IllegalStateException("Only draft or new invoices can be updated");
         }
 
         validatePayload(payload);
+        InvoicePricingEngine.PricedInvoice priced = pricingEngine.price(payload);
+
+        SalesRollupService.Contribution before = salesRollupService.contributionOf(existing, existing.getItems());
 
         existing.setAgentId(payload.agentId());
         existing.setCustomerId(payload.customerId());
         existing.setCustomerSnapshotJson(payload.customerSnapshotJson());
+        existing.setCustomerName(extractCustomerName(payload.customerSnapshotJson()));
 
         existing.setCompanyName(payload.companyName());
         existing.setCompanyAddress(payload.companyAddress());
@@ -231,11 +290,11 @@ public class InvoiceService {
         existing.setCustomerGst(payload.customerGst());
         existing.setCustomerMobile(payload.customerMobile());
         existing.setCustomerEmail(payload.customerEmail());
-        existing.setSubtotal(nullSafe(payload.subtotal()));
-        existing.setTotalDiscount(nullSafe(payload.totalDiscount()));
-        existing.setTaxAmount(nullSafe(payload.taxAmount()));
-        existing.setShipping(nullSafe(payload.shipping()));
-        existing.setTotal(nullSafe(payload.total()));
+        existing.setSubtotal(priced.subtotal());
+        existing.setTotalDiscount(priced.totalDiscount());
+        existing.setTaxAmount(priced.taxAmount());
+        existing.setShipping(priced.shipping());
+        existing.setTotal(priced.total());
         if (payload.currency() != null) {
             existing.setCurrency(payload.currency());
         }
@@ -268,27 +327,12 @@ public class InvoiceService {
         }
         existing.setDueDate(payload.dueDate());
 
+        mergeItems(existing, priced.items());
+        // Item-only edits leave the invoice row clean, but updatedAt is the detail ETag and must move
+        existing.setUpdatedAt(Instant.now());
         Invoice saved = invoiceRepository.save(existing);
-
-        // Replace items
-        List<InvoiceItem> oldItems = itemRepository.findByInvoiceId(saved.getId());
-        itemRepository.deleteAll(oldItems);
-        if (payload.items() != null) {
-            for (InvoiceItemPayload item : payload.items()) {
-                InvoiceItem entity = InvoiceItem.builder()
-                        .invoice(saved)
-                        .productId(item.productId())
-                        .name(item.name())
-                        .sku(item.sku())
-                        .unitPrice(nullSafe(item.unitPrice()))
-                        .quantity(item.quantity() != null ? item.quantity() : 0)
-                        .discount(nullSafe(item.discount()))
-                        .tax(nullSafe(item.tax()))
-                        .lineTotal(nullSafe(item.lineTotal()))
-                        .build();
-                itemRepository.save(entity);
-            }
-        }
+        salesRollupService.replace(before, salesRollupService.contributionOf(saved, saved.getItems()));
+        receivablesAging.onSaved(saved);
 
         audit("UPDATED", saved, payload.createdBy(), "Invoice updated");
         return Optional.of(saved);
@@ -301,96 +345,234 @@ public class InvoiceService {
             return false;
         }
         Invoice existing = existingOpt.get();
-        List<InvoiceItem> items = itemRepository.findByInvoiceId(id);
-        itemRepository.deleteAll(items);
-        invoiceRepository.deleteById(id);
+        salesRollupService.remove(salesRollupService.contributionOf(existing, existing.getItems()));
+        invoiceRepository.delete(existing);
+        receivablesAging.onDeleted(existing.getId());
         audit("DELETED", existing, actorId, "Invoice deleted");
         return true;
     }
 
     @Transactional
-    public Optional<Invoice> markStatus(String id, String newStatus, String actorId) {
+    public Optional<Invoice> markStatus(String id, String newStatus, String actorId, Long expectedVersion) {
         Optional<Invoice> existingOpt = invoiceRepository.findById(id);
         if (existingOpt.isEmpty()) {
             return Optional.empty();
         }
         Invoice existing = existingOpt.get();
+        checkVersion(existing, expectedVersion);
+        SalesRollupService.Contribution before = salesRollupService.contributionOf(existing, existing.getItems());
         existing.setStatus(newStatus);
         Invoice saved = invoiceRepository.save(existing);
+        salesRollupService.replace(before, salesRollupService.contributionOf(saved, saved.getItems()));
+        receivablesAging.onSaved(saved);
         audit(newStatus, saved, actorId, "Status changed to " + newStatus);
         return Optional.of(saved);
     }
 
-    public Page<Invoice> listInvoices(String agentId, String status, LocalDate fromDate, LocalDate toDate, int page, int size) {
+    // Offset listing; withCount=false skips the count query and returns a Slice
+    @Transactional(readOnly = true)
+    public Slice<Invoice> listInvoices(String agentId, String status, String customer, LocalDate fromDate, LocalDate toDate,
+                                       int page, int size, boolean withCount) {
+        Pageable pageable = PageRequest.of(page, size);
+        ZoneId zoneId = ZoneId.systemDefault();
+        if (withCount) {
+            return invoiceRepository.findFiltered(blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                    startOf(fromDate, zoneId), endOf(toDate, zoneId), pageable);
+        }
+        return invoiceRepository.findFilteredSlice(blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                startOf(fromDate, zoneId), endOf(toDate, zoneId), pageable);
+    }
+
+    // Keyset listing: deep pages cost the same as the first and no count is run
+    @Transactional(readOnly = true)
+    public InvoiceCursorPage<Invoice> listInvoicesAfter(String agentId, String status, String customer, LocalDate fromDate,
+                                                        LocalDate toDate, String cursor, int size) {
+        KeysetCursor position = listPosition(cursor, size);
+        ZoneId zoneId = ZoneId.systemDefault();
+        List<Invoice> fetched = invoiceRepository.findFilteredBefore(
+                blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                startOf(fromDate, zoneId), endOf(toDate, zoneId),
+                position != null ? position.after() : null, position != null ? position.afterId() : null,
+                PageRequest.of(0, size + 1));
+        return cursorPage(fetched, size, Invoice::getCreatedAt, Invoice::getId, invoice -> invoice);
+    }
+
+    // Summary list mode: same filters and paging, but only the summary columns are read
+    @Transactional(readOnly = true)
+    public Slice<InvoiceSummary> listInvoiceSummaries(String agentId, String status, String customer, LocalDate fromDate,
+                                                      LocalDate toDate, int page, int size, boolean withCount) {
+        Pageable pageable = PageRequest.of(page, size);
+        ZoneId zoneId = ZoneId.systemDefault();
+        Slice<InvoiceSummaryLine> lines = withCount
+                ? invoiceRepository.findFilteredSummaries(blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                        startOf(fromDate, zoneId), endOf(toDate, zoneId), pageable)
+                : invoiceRepository.findFilteredSummarySlice(blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                        startOf(fromDate, zoneId), endOf(toDate, zoneId), pageable);
+        return lines.map(this::toSummary);
+    }
+
+    @Transactional(readOnly = true)
+    public InvoiceCursorPage<InvoiceSummary> listInvoiceSummariesAfter(String agentId, String status, String customer,
+                                                                       LocalDate fromDate, LocalDate toDate,
+                                                                       String cursor, int size) {
+        KeysetCursor position = listPosition(cursor, size);
+        ZoneId zoneId = ZoneId.systemDefault();
+        List<InvoiceSummaryLine> fetched = invoiceRepository.findFilteredSummariesBefore(
+                blankToNull(agentId), blankToNull(status), customerPrefix(customer),
+                startOf(fromDate, zoneId), endOf(toDate, zoneId),
+                position != null ? position.after() : null, position != null ? position.afterId() : null,
+                PageRequest.of(0, size + 1));
+        return cursorPage(fetched, size, InvoiceSummaryLine::getCreatedAt, InvoiceSummaryLine::getId, this::toSummary);
+    }
+
+    // Matches invoice number, customer name, GST and mobile; newest first
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> searchInvoices(String text, int page, int size) {
+        String trimmed = text != null ? text.trim() : "";
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
         Pageable pageable = PageRequest.of(page, size);
-        if (agentId != null && !agentId.isBlank()) {
-            if (status != null && !status.isBlank()) {
-                return invoiceRepository.findByAgentIdAndStatus(agentId, status, pageable);
+        Page<String> ids;
+        if (searchIndex.fullTextAvailable()) {
+            String query = searchIndex.booleanQuery(trimmed);
+            if (query.isEmpty()) {
+                throw new IllegalArgumentException("Search text is required");
             }
-            return invoiceRepository.findByAgentId(agentId, pageable);
+            ids = invoiceRepository.searchIdsFullText(query, pageable);
+        } else {
+            ids = invoiceRepository.searchIdsByPattern("%" + likeEscape(trimmed.toLowerCase()) + "%", pageable);
         }
-        // TODO: add date range filtering if needed
-        return invoiceRepository.findAll(pageable);
+        Map<String, InvoiceSummary> summaries = new HashMap<>();
+        if (ids.hasContent()) {
+            for (InvoiceSummaryLine line : invoiceRepository.findSummariesByIdIn(ids.getContent())) {
+                summaries.put(line.getId(), toSummary(line));
+            }
+        }
+        return ids.map(summaries::get);
     }
 
     public Optional<Invoice> findById(String id) {
         return invoiceRepository.findById(id);
     }
 
-    public List<InvoiceItem> getItemsForInvoice(String invoiceId) {
-        return itemRepository.findByInvoiceId(invoiceId);
+    // Cheap version probe for conditional GETs: reads one column and touches neither items nor audit
+    @Transactional(readOnly = true)
+    public Optional<Instant> findUpdatedAt(String id) {
+        return invoiceRepository.findUpdatedAtById(id);
     }
 
-    public List<InvoiceAudit> getAuditForInvoice(String invoiceId) {
-        return auditRepository.findByInvoiceIdOrderByCreatedAtAsc(invoiceId);
+    // Invoice and items in one query, for readers that do not need the audit trail
+    @Transactional(readOnly = true)
+    public Optional<Invoice> findWithItems(String id) {
+        return invoiceRepository.findWithItemsById(id);
     }
 
-    @Transactional
-    public Optional<Invoice> attachPdf(String id, org.springframework.web.multipart.MultipartFile file, String actorId) throws Exception {
-        Optional<Invoice> existingOpt = invoiceRepository.findById(id);
-        if (existingOpt.isEmpty()) {
-            return Optional.empty();
+    @Transactional(readOnly = true)
+    public Optional<InvoiceDetail> getDetail(String id) {
+        return invoiceRepository.findWithItemsById(id)
+                .map(invoice -> new InvoiceDetail(
+                        invoice,
+                        List.copyOf(invoice.getItems()),
+                        getAuditTrail(id)));
+    }
+
+    // Events already moved to invoice_audit followed by those still in the outbox, read in one
+    // query so an event being moved is listed once
+    @Transactional(readOnly = true)
+    public List<InvoiceAudit> getAuditTrail(String invoiceId) {
+        List<AuditTrailLine> lines = new ArrayList<>(auditRepository.findTrailByInvoiceId(invoiceId));
+        lines.sort(Comparator.comparingInt(AuditTrailLine::getPending)
+                .thenComparing(AuditTrailLine::getCreatedAt)
+                .thenComparing(AuditTrailLine::getId));
+        List<InvoiceAudit> trail = new ArrayList<>(lines.size());
+        for (AuditTrailLine line : lines) {
+            trail.add(InvoiceAudit.builder()
+                    // Outbox ids are not invoice_audit ids
+                    .id(line.getPending() == 0 ? line.getId() : null)
+                    .invoiceId(line.getInvoiceId())
+                    .action(line.getAction())
+                    .actorId(line.getActorId())
+                    .details(line.getDetails())
+                    .createdAt(line.getCreatedAt())
+                    .build());
         }
-        Invoice invoice = existingOpt.get();
+        return trail;
+    }
 
+    // The file is written before, and outside, the transaction that records its URL
+    public Optional<Invoice> attachPdf(String id, MultipartFile file, String actorId) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("PDF file is required");
         }
-
-        String uploadsDir = System.getProperty("user.dir") + "/uploads/invoices";
-        java.nio.file.Path dirPath = java.nio.file.Paths.get(uploadsDir);
-        java.nio.file.Files.createDirectories(dirPath);
-
-        String filename = id + "-" + System.currentTimeMillis() + ".pdf";
-        java.nio.file.Path filePath = dirPath.resolve(filename);
-        java.nio.file.Files.write(filePath, file.getBytes());
-
-        // For now expose as a relative path; you can put this behind a static resource handler.
-        String url = "/uploads/invoices/" + filename;
-        invoice.setInvoicePdfUrl(url);
-        Invoice saved = invoiceRepository.save(invoice);
-
-        audit("PDF_ATTACHED", saved, actorId, "PDF uploaded for invoice");
-        return Optional.of(saved);
+        if (!invoiceRepository.existsById(id)) {
+            return Optional.empty();
+        }
+        InvoicePdfUploads.StoredPdf stored = pdfUploads.store(id, file);
+        Optional<Invoice> attached = writeTransaction.execute(tx -> {
+            Optional<Invoice> existingOpt = invoiceRepository.findById(id);
+            if (existingOpt.isEmpty()) {
+                return Optional.<Invoice>empty();
+            }
+            Invoice invoice = existingOpt.get();
+            if (stored.url().equals(invoice.getInvoicePdfUrl())) {
+                return Optional.of(invoice);
+            }
+            invoice.setInvoicePdfUrl(stored.url());
+            Invoice saved = invoiceRepository.save(invoice);
+            audit("PDF_ATTACHED", saved, actorId, "PDF uploaded for invoice (sha256 " + stored.sha256() + ")");
+            return Optional.of(saved);
+        });
+        if (attached.isEmpty() && stored.created()) {
+            // Deleted while the upload was being written
+            Files.deleteIfExists(stored.path());
+        }
+        return attached;
     }
 
     public InvoiceSummary toSummary(Invoice invoice) {
-        String customerName = null;
-        // lightweight extraction if snapshot JSON contains name field; can be parsed on frontend too
-        if (invoice.getCustomerSnapshotJson() != null && invoice.getCustomerSnapshotJson().contains("\"name\"")) {
-            customerName = ""; // leave parsing to frontend to avoid JSON binding here
-        }
+        String customerName = invoice.getCustomerName();
         return new InvoiceSummary(
                 invoice.getId(),
                 invoice.getInvoiceNo(),
                 invoice.getAgentId(),
-                customerName,
+                customerName != null && !customerName.isEmpty() ? customerName : null,
                 invoice.getTotal(),
                 invoice.getStatus(),
                 invoice.getCreatedAt()
         );
     }
 
+    private InvoiceSummary toSummary(InvoiceSummaryLine line) {
+        String customerName = line.getCustomerName();
+        return new InvoiceSummary(
+                line.getId(),
+                line.getInvoiceNo(),
+                line.getAgentId(),
+                customerName != null && !customerName.isEmpty() ? customerName : null,
+                line.getTotal(),
+                line.getStatus(),
+                line.getCreatedAt()
+        );
+    }
+
+    // Returns "" when the snapshot has no usable name, so the backfill does not revisit the row
+    public String extractCustomerName(String snapshotJson) {
+        if (snapshotJson == null || snapshotJson.isBlank()) {
+            return "";
+        }
+        try {
+            JsonNode name = objectMapper.readTree(snapshotJson).path("name");
+            if (!name.isValueNode() || name.isNull()) {
+                return "";
+            }
+            String value = name.asText().trim();
+            return value.length() > CUSTOMER_NAME_MAX_LENGTH ? value.substring(0, CUSTOMER_NAME_MAX_LENGTH) : value;
+        } catch (JsonProcessingException e) {
+            return "";
+        }
+    }
+
     private void validatePayload(InvoicePayload payload) {
         if (payload.agentId() == null || payload.agentId().isBlank()) {
             throw new IllegalArgumentException("agentId is required");
@@ -401,36 +583,147 @@ public class InvoiceService {
         if (payload.items() == null || payload.items().isEmpty()) {
             throw new IllegalArgumentException("At least one item is required");
         }
-        if (payload.subtotal() == null || payload.total() == null) {
+        // With pricing on, the server computes the totals
+        if (pricingEngine.mode() == InvoicePricingEngine.Mode.OFF &&
+                (payload.subtotal() == null || payload.total() == null)) {
             throw new IllegalArgumentException("subtotal and total are required");
         }
-        if (payload.subtotal().compareTo(BigDecimal.ZERO) < 0 ||
-                payload.total().compareTo(BigDecimal.ZERO) < 0) {
+        if ((payload.subtotal() != null && payload.subtotal().compareTo(BigDecimal.ZERO) < 0) ||
+                (payload.total() != null && payload.total().compareTo(BigDecimal.ZERO) < 0)) {
             throw new IllegalArgumentException("Amounts cannot be negative");
         }
     }
 
+    // Concurrent writers that pass the check are still caught by @Version at flush
+    private void checkVersion(Invoice invoice, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(invoice.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Invoice.class, invoice.getId());
+        }
+    }
+
+    private KeysetCursor listPosition(String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        return cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+    }
+
+    // fetched holds up to size + 1 rows; the extra row only signals that another page exists
+    private <L, R> InvoiceCursorPage<R> cursorPage(List<L> fetched, int size, Function<L, Instant> createdAtOf,
+                                                   Function<L, String> idOf, Function<L, R> mapper) {
+        if (fetched.size() <= size) {
+            return new InvoiceCursorPage<>(fetched.stream().map(mapper).toList(), null);
+        }
+        List<L> content = fetched.subList(0, size);
+        L last = content.get(size - 1);
+        return new InvoiceCursorPage<>(content.stream().map(mapper).toList(),
+                new KeysetCursor(createdAtOf.apply(last), idOf.apply(last)).encode());
+    }
+
+    private Instant startOf(LocalDate date, ZoneId zoneId) {
+        return date != null ? date.atStartOfDay(zoneId).toInstant() : null;
+    }
+
+    // Exclusive upper bound: the start of the day after toDate
+    private Instant endOf(LocalDate date, ZoneId zoneId) {
+        return date != null ? date.plusDays(1).atStartOfDay(zoneId).toInstant() : null;
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Escaped for LIKE so a prefix containing % or _ only matches literally
+    private String customerPrefix(String customer) {
+        String prefix = blankToNull(customer);
+        return prefix == null ? null : likeEscape(prefix);
+    }
+
+    private String likeEscape(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private InvoiceItem toItem(Invoice invoice, InvoiceItemPayload item) {
+        InvoiceItem entity = InvoiceItem.builder().invoice(invoice).build();
+        applyItem(entity, item);
+        return entity;
+    }
+
+    // Unchanged values leave the entity clean, so Hibernate only updates lines that really changed
+    private void applyItem(InvoiceItem entity, InvoiceItemPayload item) {
+        entity.setProductId(item.productId());
+        entity.setName(item.name());
+        entity.setSku(item.sku());
+        entity.setUnitPrice(nullSafe(item.unitPrice()));
+        entity.setQuantity(item.quantity() != null ? item.quantity() : 0);
+        entity.setDiscount(nullSafe(item.discount()));
+        entity.setTax(nullSafe(item.tax()));
+        entity.setLineTotal(nullSafe(item.lineTotal()));
+    }
+
+    // Matches incoming lines to existing ones by id, then productId, then sku. Matched lines are
+    // updated in place and keep their ids, unmatched payloads are inserted and leftover rows are
+    // removed through orphan removal; Hibernate batches all three at flush.
+    private void mergeItems(Invoice invoice, List<InvoiceItemPayload> payloads) {
+        List<InvoiceItem> unmatched = new ArrayList<>(invoice.getItems());
+        List<InvoiceItem> added = new ArrayList<>();
+        for (InvoiceItemPayload payload : payloads != null ? payloads : List.<InvoiceItemPayload>of()) {
+            InvoiceItem match = takeMatch(unmatched, payload);
+            if (match != null) {
+                applyItem(match, payload);
+            } else {
+                added.add(toItem(invoice, payload));
+            }
+        }
+        invoice.getItems().removeAll(unmatched);
+        invoice.getItems().addAll(added);
+    }
+
+    private InvoiceItem takeMatch(List<InvoiceItem> candidates, InvoiceItemPayload payload) {
+        InvoiceItem match = null;
+        if (payload.id() != null) {
+            match = first(candidates, item -> payload.id().equals(item.getId()));
+        }
+        if (match == null && payload.productId() != null) {
+            match = first(candidates, item -> payload.productId().equals(item.getProductId()));
+        }
+        if (match == null && payload.sku() != null && !payload.sku().isBlank()) {
+            match = first(candidates, item -> payload.sku().equals(item.getSku()));
+        }
+        if (match != null) {
+            candidates.remove(match);
+        }
+        return match;
+    }
+
+    private static InvoiceItem first(List<InvoiceItem> items, Predicate<InvoiceItem> condition) {
+        for (InvoiceItem item : items) {
+            if (condition.test(item)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
     private BigDecimal nullSafe(BigDecimal value) {
         return value != null ? value : BigDecimal.ZERO;
     }
 
     private String generateInvoiceNumber() {
-        // Simple pattern: INV-YYYY-<timestamp-last4>
+        // INV-YYYY-NNNNNN from the per-year sequence; six digits keep these distinct from the
+        // older four-digit, timestamp-based numbers
         int year = LocalDate.now(ZoneOffset.UTC).getYear();
-        String suffix = String.valueOf(System.currentTimeMillis());
-        if (suffix.length() > 4) {
-            suffix = suffix.substring(suffix.length() - 4);
-        }
-        return "INV-" + year + "-" + String.format("%04d", Integer.parseInt(suffix));
+        return "INV-" + year + "-" + String.format("%06d", invoiceNumberAllocator.next(year));
     }
 
     private void audit(String action, Invoice invoice, String actorId, String details) {
-        InvoiceAudit audit = InvoiceAudit.builder()
+        // Written with the invoice change and copied to invoice_audit by InvoiceAuditWriter
+        InvoiceAuditOutbox event = InvoiceAuditOutbox.builder()
                 .invoiceId(invoice.getId())
                 .action(action)
                 .actorId(actorId != null ? actorId : invoice.getCreatedBy())
                 .details(details)
                 .build();
-        auditRepository.save(audit);
+        auditOutboxRepository.save(event);
     }
 }
@@ -0,0 +1,30 @@
+package com.fieldforcepro.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// Position in a listing ordered by (timestamp, id), passed to clients as an opaque token:
+// base64url("<epochSecond>.<nanos>|<id>")
+public record KeysetCursor(Instant after, String afterId) {
+
+    public String encode() {
+        String raw = after.getEpochSecond() + "." + after.getNano() + "|" + afterId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            int dot = raw.indexOf('.');
+            if (bar < 0 || dot < 0 || dot > bar) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Instant after = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, bar)));
+            return new KeysetCursor(after, raw.substring(bar + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
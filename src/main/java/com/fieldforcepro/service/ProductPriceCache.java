@@ -0,0 +1,109 @@
+package com.fieldforcepro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Catalog prices and GST rates for invoice pricing, held as one immutable snapshot with amounts in
+// paise and rates in basis points. ProductPriceCacheInvalidator drops it when a product write
+// commits, and it is reloaded after the TTL to pick up changes made elsewhere. Loads through JDBC,
+// so the entity listener that depends on it does not depend on the EntityManagerFactory.
+@Component
+public class ProductPriceCache {
+
+    public record ProductPrice(long pricePaise, int gstBasisPoints, String name, String sku) { }
+
+    public record Prices(Map<Long, ProductPrice> products, int defaultGstBasisPoints, Instant loadedAt) {
+        public ProductPrice get(Long productId) {
+            return products.get(productId);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int defaultGstBasisPoints;
+    private final Map<String, Integer> categoryGstBasisPoints;
+    private final Duration ttl;
+
+    private volatile Prices prices;
+    // Bumped on every invalidation; a load that raced with a product write is not kept
+    private long generation;
+
+    public ProductPriceCache(
+            JdbcTemplate jdbcTemplate,
+            @Value("${fieldforcepro.pricing.gst.default-rate:18}") String defaultGstRate,
+            @Value("${fieldforcepro.pricing.gst.category-rates:}") String categoryGstRates,
+            @Value("${fieldforcepro.pricing.product-cache-ttl:10m}") Duration ttl
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultGstBasisPoints = basisPoints(defaultGstRate);
+        this.categoryGstBasisPoints = parseCategoryRates(categoryGstRates);
+        this.ttl = ttl;
+    }
+
+    public Prices current() {
+        Prices snapshot = prices;
+        if (snapshot != null && snapshot.loadedAt().plus(ttl).isAfter(Instant.now())) {
+            return snapshot;
+        }
+        return reload();
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        prices = null;
+    }
+
+    private Prices reload() {
+        long loadGeneration;
+        synchronized (this) {
+            Prices snapshot = prices;
+            if (snapshot != null && snapshot.loadedAt().plus(ttl).isAfter(Instant.now())) {
+                return snapshot;
+            }
+            loadGeneration = generation;
+        }
+        Map<Long, ProductPrice> products = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name, sku, category, price FROM products", rs -> {
+            String category = rs.getString("category");
+            Integer rate = category != null ? categoryGstBasisPoints.get(category.toLowerCase()) : null;
+            products.put(rs.getLong("id"), new ProductPrice(
+                    rs.getBigDecimal("price").movePointRight(2).longValueExact(),
+                    rate != null ? rate : defaultGstBasisPoints,
+                    rs.getString("name"),
+                    rs.getString("sku")));
+        });
+        Prices loaded = new Prices(Map.copyOf(products), defaultGstBasisPoints, Instant.now());
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                prices = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    // "services=18,spares=12.5" -> basis points per lower-case category
+    private static Map<String, Integer> parseCategoryRates(String rates) {
+        Map<String, Integer> parsed = new HashMap<>();
+        if (rates == null || rates.isBlank()) {
+            return parsed;
+        }
+        for (String entry : rates.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid GST category rate: " + entry);
+            }
+            parsed.put(parts[0].trim().toLowerCase(), basisPoints(parts[1]));
+        }
+        return parsed;
+    }
+
+    private static int basisPoints(String percent) {
+        return new BigDecimal(percent.trim()).movePointRight(2).intValueExact();
+    }
+}
@@ -0,0 +1,35 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Product;
+import com.fieldforcepro.model.listener.EntityWriteObserver;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Drops the cached product prices once a product write commits.
+@Component
+public class ProductPriceCacheInvalidator implements EntityWriteObserver {
+
+    private final ProductPriceCache productPriceCache;
+
+    public ProductPriceCacheInvalidator(ProductPriceCache productPriceCache) {
+        this.productPriceCache = productPriceCache;
+    }
+
+    @Override
+    public void onWrite(Object entity) {
+        if (!(entity instanceof Product)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productPriceCache.invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productPriceCache.invalidate();
+            }
+        });
+    }
+}
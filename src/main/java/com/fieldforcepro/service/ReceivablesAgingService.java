@@ -0,0 +1,381 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.InvoiceRepository.AgingInvoiceLine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Receivables aging (current, 1-30, 31-60, 61-90 and over 90 days past due) kept in memory per
+ * agent and per customer.
+ *
+ * Every open invoice sits in one bucket according to its due date. InvoiceService reports each
+ * committed write, which moves that one invoice between buckets. When the day changes only the
+ * invoices whose due date is exactly 1, 31, 61 or 91 days back cross a boundary, so rolling
+ * forward touches those alone. Reads return ready totals. The buckets are loaded from the
+ * invoices at startup and snapshotted to receivables_aging periodically.
+ */
+@Service
+public class ReceivablesAgingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceivablesAgingService.class);
+
+    // Invoices that are issued but not yet paid or cancelled
+    public static final Set<String> OPEN_STATUSES = Set.of("SENT");
+
+    // Days past due at which an amount enters buckets 1, 2, 3 and 4
+    private static final int[] BUCKET_STARTS = {1, 31, 61, 91};
+    private static final int BUCKET_COUNT = BUCKET_STARTS.length + 1;
+
+    public record AgingBuckets(
+            BigDecimal current,
+            BigDecimal days1To30,
+            BigDecimal days31To60,
+            BigDecimal days61To90,
+            BigDecimal over90,
+            BigDecimal total,
+            long openInvoices
+    ) { }
+
+    public record AgingReport(LocalDate asOf, String agentId, String customer, AgingBuckets buckets) { }
+
+    private record Receivable(String agentId, String customer, LocalDate dueDay, BigDecimal amount) { }
+
+    private final InvoiceRepository invoiceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final Clock clock;
+    private final ZoneId zoneId;
+
+    private Book book;
+    // Writes committed while a rebuild is reading; replayed onto the new book. null values are removals.
+    private Map<String, Receivable> pending;
+    private boolean dirty;
+
+    @Autowired
+    public ReceivablesAgingService(InvoiceRepository invoiceRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this(invoiceRepository, jdbcTemplate, transactionManager, Clock.systemDefaultZone());
+    }
+
+    // Tests advance the clock to roll the buckets forward
+    ReceivablesAgingService(InvoiceRepository invoiceRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            Clock clock) {
+        this.clock = clock;
+        this.zoneId = clock.getZone();
+        this.invoiceRepository = invoiceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.book = new Book(today());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    // Applied after the surrounding transaction commits, so rolled-back writes never show up
+    public void onSaved(Invoice invoice) {
+        String id = invoice.getId();
+        Receivable receivable = receivableOf(invoice.getStatus(), invoice.getAgentId(), invoice.getCustomerId(),
+                invoice.getCustomerName(), invoice.getTotal(), invoice.getInvoiceDate(), invoice.getDueDate());
+        afterCommit(() -> set(id, receivable));
+    }
+
+    public void onDeleted(String invoiceId) {
+        afterCommit(() -> set(invoiceId, null));
+    }
+
+    public synchronized AgingReport report(String agentId, String customer) {
+        book.rollForward(today());
+        Totals totals;
+        if (agentId != null && !agentId.isBlank()) {
+            totals = book.byAgent.get(agentId);
+        } else if (customer != null && !customer.isBlank()) {
+            totals = book.byCustomer.get(customer);
+        } else {
+            totals = book.overall;
+        }
+        return new AgingReport(book.asOf, blankToNull(agentId), blankToNull(customer),
+                totals != null ? totals.snapshot() : new Totals().snapshot());
+    }
+
+    // Reloads every open invoice; writes committed meanwhile are queued and replayed
+    public long rebuild() {
+        synchronized (this) {
+            pending = new LinkedHashMap<>();
+        }
+        Book rebuilt = new Book(today());
+        try {
+            readTransaction.executeWithoutResult(tx -> {
+                try (Stream<AgingInvoiceLine> stream = invoiceRepository.streamOpenReceivables(OPEN_STATUSES)) {
+                    for (AgingInvoiceLine line : (Iterable<AgingInvoiceLine>) stream::iterator) {
+                        rebuilt.put(line.getId(), receivableOf(null, line.getAgentId(), line.getCustomerId(),
+                                line.getCustomerName(), line.getTotal(), line.getInvoiceDate(), line.getDueDate()));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            rebuilt.rollForward(today());
+            pending.forEach(rebuilt::put);
+            pending = null;
+            book = rebuilt;
+            dirty = true;
+            log.info("Loaded {} open receivables into the aging buckets", rebuilt.open.size());
+            return rebuilt.open.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fieldforcepro.invoices.aging.persist-interval-ms:300000}")
+    public void persist() {
+        LocalDate asOf;
+        List<Object[]> rows = new ArrayList<>();
+        synchronized (this) {
+            LocalDate today = today();
+            if (!dirty && !book.asOf.isBefore(today)) {
+                return;
+            }
+            book.rollForward(today);
+            asOf = book.asOf;
+            rows.add(snapshotRow("ALL", "", book.overall));
+            book.byAgent.forEach((agentId, totals) -> rows.add(snapshotRow("AGENT", agentId, totals)));
+            book.byCustomer.forEach((customer, totals) -> rows.add(snapshotRow("CUSTOMER", customer, totals)));
+            dirty = false;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            writeTransaction.executeWithoutResult(tx -> {
+                jdbcTemplate.update("DELETE FROM receivables_aging WHERE as_of = ?", Date.valueOf(asOf));
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO receivables_aging (as_of, scope, scope_key, current_amount, days_1_30, days_31_60, " +
+                                "days_61_90, over_90, open_invoices, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        rows, 500, (ps, row) -> {
+                            ps.setDate(1, Date.valueOf(asOf));
+                            ps.setString(2, (String) row[0]);
+                            ps.setString(3, (String) row[1]);
+                            BigDecimal[] amounts = (BigDecimal[]) row[2];
+                            for (int b = 0; b < BUCKET_COUNT; b++) {
+                                ps.setBigDecimal(4 + b, amounts[b]);
+                            }
+                            ps.setLong(9, (Long) row[3]);
+                            ps.setTimestamp(10, now);
+                        });
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            log.warn("Receivables aging snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void set(String invoiceId, Receivable receivable) {
+        if (pending != null) {
+            pending.put(invoiceId, receivable);
+        }
+        book.rollForward(today());
+        book.put(invoiceId, receivable);
+        dirty = true;
+    }
+
+    private Object[] snapshotRow(String scope, String key, Totals totals) {
+        return new Object[]{scope, key, totals.amounts.clone(), totals.count};
+    }
+
+    // null for invoices that are not open receivables; a null status means the caller already filtered
+    private Receivable receivableOf(String status, String agentId, String customerId, String customerName,
+                                    BigDecimal total, Instant invoiceDate, Instant dueDate) {
+        if (status != null && !OPEN_STATUSES.contains(status.toUpperCase())) {
+            return null;
+        }
+        Instant due = dueDate != null ? dueDate : invoiceDate;
+        if (due == null) {
+            return null;
+        }
+        String customer = customerId != null && !customerId.isBlank() ? customerId
+                : customerName != null ? customerName : "";
+        return new Receivable(agentId != null ? agentId : "", customer, LocalDate.ofInstant(due, zoneId),
+                total != null ? total : BigDecimal.ZERO);
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int bucketOf(long daysPastDue) {
+        int bucket = 0;
+        while (bucket < BUCKET_STARTS.length && daysPastDue >= BUCKET_STARTS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static final class Totals {
+        final BigDecimal[] amounts = new BigDecimal[BUCKET_COUNT];
+        long count;
+
+        Totals() {
+            Arrays.fill(amounts, BigDecimal.ZERO);
+        }
+
+        void add(int bucket, BigDecimal amount) {
+            amounts[bucket] = amounts[bucket].add(amount);
+            count++;
+        }
+
+        void remove(int bucket, BigDecimal amount) {
+            amounts[bucket] = amounts[bucket].subtract(amount);
+            count--;
+        }
+
+        void move(int from, int to, BigDecimal amount) {
+            amounts[from] = amounts[from].subtract(amount);
+            amounts[to] = amounts[to].add(amount);
+        }
+
+        AgingBuckets snapshot() {
+            BigDecimal total = BigDecimal.ZERO;
+            for (BigDecimal amount : amounts) {
+                total = total.add(amount);
+            }
+            return new AgingBuckets(amounts[0], amounts[1], amounts[2], amounts[3], amounts[4], total, count);
+        }
+    }
+
+    // Bucket totals as of one day, with the open invoices indexed by due day for rolling forward
+    private static final class Book {
+        final Map<String, Receivable> open = new HashMap<>();
+        final Map<LocalDate, Set<String>> dueOn = new HashMap<>();
+        final Totals overall = new Totals();
+        final Map<String, Totals> byAgent = new HashMap<>();
+        final Map<String, Totals> byCustomer = new HashMap<>();
+        LocalDate asOf;
+
+        Book(LocalDate asOf) {
+            this.asOf = asOf;
+        }
+
+        // Replaces whatever was recorded for the invoice; null removes it
+        void put(String invoiceId, Receivable receivable) {
+            Receivable previous = receivable != null ? open.put(invoiceId, receivable) : open.remove(invoiceId);
+            if (previous != null) {
+                int bucket = bucketOf(daysPastDue(previous));
+                overall.remove(bucket, previous.amount());
+                totals(byAgent, previous.agentId()).remove(bucket, previous.amount());
+                totals(byCustomer, previous.customer()).remove(bucket, previous.amount());
+                dropEmpty(previous);
+                Set<String> ids = dueOn.get(previous.dueDay());
+                if (ids != null) {
+                    ids.remove(invoiceId);
+                    if (ids.isEmpty()) {
+                        dueOn.remove(previous.dueDay());
+                    }
+                }
+            }
+            if (receivable != null) {
+                int bucket = bucketOf(daysPastDue(receivable));
+                overall.add(bucket, receivable.amount());
+                totals(byAgent, receivable.agentId()).add(bucket, receivable.amount());
+                totals(byCustomer, receivable.customer()).add(bucket, receivable.amount());
+                dueOn.computeIfAbsent(receivable.dueDay(), d -> new HashSet<>()).add(invoiceId);
+            }
+        }
+
+        // Moves only the invoices that cross a bucket boundary on each new day
+        void rollForward(LocalDate today) {
+            while (asOf.isBefore(today)) {
+                LocalDate next = asOf.plusDays(1);
+                for (int b = 0; b < BUCKET_STARTS.length; b++) {
+                    Set<String> ids = dueOn.get(next.minusDays(BUCKET_STARTS[b]));
+                    if (ids == null) {
+                        continue;
+                    }
+                    for (String id : ids) {
+                        Receivable receivable = open.get(id);
+                        overall.move(b, b + 1, receivable.amount());
+                        byAgent.get(receivable.agentId()).move(b, b + 1, receivable.amount());
+                        byCustomer.get(receivable.customer()).move(b, b + 1, receivable.amount());
+                    }
+                }
+                asOf = next;
+            }
+        }
+
+        private long daysPastDue(Receivable receivable) {
+            return receivable.dueDay().until(asOf, ChronoUnit.DAYS);
+        }
+
+        private void dropEmpty(Receivable previous) {
+            Totals agent = byAgent.get(previous.agentId());
+            if (agent != null && agent.count == 0) {
+                byAgent.remove(previous.agentId());
+            }
+            Totals customer = byCustomer.get(previous.customer());
+            if (customer != null && customer.count == 0) {
+                byCustomer.remove(previous.customer());
+            }
+        }
+
+        private static Totals totals(Map<String, Totals> map, String key) {
+            return map.computeIfAbsent(key, k -> new Totals());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.ReportType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Result cache for the JSON report endpoints, bounded by the total number of cached rows.
+// Ranges that ended before today can only change through back-dated edits, so they are kept
+// much longer than ranges that still include today.
+@Component
+public class ReportCache {
+
+    private record Key(ReportType type, LocalDate from, LocalDate to, String filter) { }
+
+    private record Entry(List<?> rows, Instant expiresAt) { }
+
+    private final int maxRows;
+    private final int maxEntryRows;
+    private final Duration openRangeTtl;
+    private final Duration closedRangeTtl;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Bumped on every invalidation; a load that raced with a write is not cached
+    private final long[] generations = new long[ReportType.values().length];
+    private long cachedRows;
+
+    public ReportCache(
+            @Value("${fieldforcepro.reports.cache.max-rows:200000}") int maxRows,
+            @Value("${fieldforcepro.reports.cache.max-entry-rows:50000}") int maxEntryRows,
+            @Value("${fieldforcepro.reports.cache.open-range-ttl:5m}") Duration openRangeTtl,
+            @Value("${fieldforcepro.reports.cache.closed-range-ttl:12h}") Duration closedRangeTtl
+    ) {
+        this.maxRows = maxRows;
+        this.maxEntryRows = maxEntryRows;
+        this.openRangeTtl = openRangeTtl;
+        this.closedRangeTtl = closedRangeTtl;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(ReportType type, LocalDate from, LocalDate to, String filter, Supplier<List<T>> loader) {
+        Key key = new Key(type, from, to, normalize(type, filter));
+        Instant now = Instant.now();
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt().isAfter(now)) {
+                    return (List<T>) entry.rows();
+                }
+                remove(key);
+            }
+            generation = generations[type.ordinal()];
+        }
+
+        List<T> rows = Collections.unmodifiableList(loader.get());
+        if (rows.size() > maxEntryRows) {
+            return rows;
+        }
+        boolean closedRange = to.isBefore(LocalDate.now(ZoneId.systemDefault()));
+        Instant expiresAt = now.plus(closedRange ? closedRangeTtl : openRangeTtl);
+        synchronized (this) {
+            if (generations[type.ordinal()] == generation) {
+                remove(key);
+                entries.put(key, new Entry(rows, expiresAt));
+                cachedRows += rows.size();
+                evictOverflow();
+            }
+        }
+        return rows;
+    }
+
+    // Drops every cached range of this report type that contains the given day
+    public synchronized void invalidate(ReportType type, LocalDate date) {
+        generations[type.ordinal()]++;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            Key key = e.getKey();
+            if (key.type() == type && !date.isBefore(key.from()) && !date.isAfter(key.to())) {
+                cachedRows -= e.getValue().rows().size();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll(ReportType type) {
+        generations[type.ordinal()]++;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().type() == type) {
+                cachedRows -= e.getValue().rows().size();
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            cachedRows -= removed.rows().size();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (cachedRows > maxRows && it.hasNext()) {
+            cachedRows -= it.next().rows().size();
+            it.remove();
+        }
+    }
+
+    private String normalize(ReportType type, String filter) {
+        if (filter == null || filter.isBlank()) {
+            return null;
+        }
+        // Orders are filtered on status case-insensitively
+        return type == ReportType.ORDERS ? filter.toUpperCase() : filter;
+    }
+}
@@ -0,0 +1,67 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.AttendanceRecord;
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.model.SalesOrder;
+import com.fieldforcepro.model.listener.EntityWriteObserver;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Evicts cached reports covering the day of a written invoice, invoice item, attendance record
+// or sales order once the transaction commits.
+@Component
+public class ReportCacheInvalidator implements EntityWriteObserver {
+
+    private final ReportCache reportCache;
+
+    public ReportCacheInvalidator(ReportCache reportCache) {
+        this.reportCache = reportCache;
+    }
+
+    @Override
+    public void onWrite(Object entity) {
+        if (entity instanceof Invoice invoice) {
+            afterCommit(ReportType.SALES, invoice.getCreatedAt());
+        } else if (entity instanceof InvoiceItem item) {
+            Invoice invoice = item.getInvoice();
+            if (invoice != null && Hibernate.isInitialized(invoice)) {
+                afterCommit(ReportType.SALES, invoice.getCreatedAt());
+            } else {
+                afterCommit(ReportType.SALES, null);
+            }
+        } else if (entity instanceof AttendanceRecord record) {
+            afterCommit(ReportType.ATTENDANCE, record.getCheckInTime());
+        } else if (entity instanceof SalesOrder order) {
+            afterCommit(ReportType.ORDERS, order.getCreatedAt());
+        }
+    }
+
+    // A null timestamp invalidates every cached range of the type
+    public void afterCommit(ReportType type, Instant timestamp) {
+        Runnable invalidation = () -> {
+            if (timestamp == null) {
+                reportCache.invalidateAll(type);
+            } else {
+                reportCache.invalidate(type, LocalDate.ofInstant(timestamp, ZoneId.systemDefault()));
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+}
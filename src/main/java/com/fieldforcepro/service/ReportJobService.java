@@ -0,0 +1,234 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.ReportFormat;
+import com.fieldforcepro.model.ReportJob;
+import com.fieldforcepro.model.ReportJobStatus;
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.repository.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final Set<ReportJobStatus> ACTIVE = EnumSet.of(ReportJobStatus.PENDING, ReportJobStatus.PROCESSING);
+    private static final Set<ReportJobStatus> FINISHED = EnumSet.of(ReportJobStatus.COMPLETED, ReportJobStatus.FAILED);
+
+    private final ReportJobRepository reportJobRepository;
+    private final ReportService reportService;
+    private final Path exportRoot;
+    private final int maxActivePerUser;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+
+    // Live row counts of running jobs; written to the job row once the job finishes
+    private final Map<String, AtomicLong> progress = new ConcurrentHashMap<>();
+
+    public ReportJobService(
+            ReportJobRepository reportJobRepository,
+            ReportService reportService,
+            @Value("${fieldforcepro.reports.jobs.dir:report-exports}") String exportDir,
+            @Value("${fieldforcepro.reports.jobs.workers:2}") int workers,
+            @Value("${fieldforcepro.reports.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${fieldforcepro.reports.jobs.max-active-per-user:2}") int maxActivePerUser,
+            @Value("${fieldforcepro.reports.jobs.retention:24h}") Duration retention
+    ) {
+        this.reportJobRepository = reportJobRepository;
+        this.reportService = reportService;
+        this.exportRoot = Paths.get(exportDir).toAbsolutePath().normalize();
+        this.maxActivePerUser = maxActivePerUser;
+        this.retention = retention;
+        // Fail startup here rather than failing every job later
+        try {
+            Files.createDirectories(this.exportRoot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create report export directory " + this.exportRoot, e);
+        }
+        deletePartialFiles();
+
+        // Small fixed pool with a bounded queue so exports can never take more than
+        // `workers` DB connections away from the interactive API
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // The user already has the maximum number of pending or running jobs
+    public static class TooManyActiveJobsException extends RuntimeException {
+        public TooManyActiveJobsException(String requestedBy, int limit) {
+            super("User " + requestedBy + " already has " + limit + " report jobs in progress");
+        }
+    }
+
+    public synchronized ReportJob submit(String requestedBy, ReportType type, ReportFormat format,
+                                         LocalDate fromDate, LocalDate toDate, String agentId, String status) {
+        if (requestedBy == null || requestedBy.isBlank()) {
+            throw new IllegalArgumentException("requestedBy is required");
+        }
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("fromDate must not be after toDate");
+        }
+        if (reportJobRepository.countByRequestedByAndStatusIn(requestedBy, ACTIVE) >= maxActivePerUser) {
+            throw new TooManyActiveJobsException(requestedBy, maxActivePerUser);
+        }
+
+        ReportJob job = reportJobRepository.save(ReportJob.builder()
+                .requestedBy(requestedBy)
+                .type(type)
+                .format(format)
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .agentId(agentId)
+                .statusFilter(status)
+                .status(ReportJobStatus.PENDING)
+                .rowsWritten(0L)
+                .fileName(type.name().toLowerCase() + "-report." + format.getExtension())
+                .build());
+
+        String jobId = job.getId();
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            finish(job, ReportJobStatus.FAILED, "Report queue is full, try again later");
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ReportJob> findJob(String id) {
+        Optional<ReportJob> job = reportJobRepository.findById(id);
+        AtomicLong live = progress.get(id);
+        if (live != null) {
+            job.ifPresent(j -> j.setRowsWritten(live.get()));
+        }
+        return job;
+    }
+
+    public Path resolveFile(ReportJob job) {
+        return Paths.get(job.getFilePath());
+    }
+
+    private void run(String jobId) {
+        ReportJob job = reportJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(ReportJobStatus.PROCESSING);
+        job.setStartedAt(Instant.now());
+        job = reportJobRepository.save(job);
+
+        AtomicLong rows = progress.computeIfAbsent(jobId, id -> new AtomicLong());
+        Path partial = exportRoot.resolve(jobId + ".part");
+        Path target = exportRoot.resolve(jobId + "." + job.getFormat().getExtension());
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                reportService.export(job.getType(), job.getFormat(), job.getFromDate(), job.getToDate(),
+                        job.getAgentId(), job.getStatusFilter(), out, rows::set);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setFilePath(target.toString());
+            job.setFileSize(Files.size(target));
+            job.setRowsWritten(rows.get());
+            finish(job, ReportJobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            log.warn("Report job {} failed", jobId, e);
+            deleteQuietly(partial);
+            job.setRowsWritten(rows.get());
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            finish(job, ReportJobStatus.FAILED, message.length() > 1000 ? message.substring(0, 1000) : message);
+        } finally {
+            progress.remove(jobId);
+        }
+    }
+
+    private void finish(ReportJob job, ReportJobStatus status, String errorMessage) {
+        Instant now = Instant.now();
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage);
+        job.setCompletedAt(now);
+        job.setExpiresAt(now.plus(retention));
+        reportJobRepository.save(job);
+    }
+
+    @Scheduled(fixedDelayString = "${fieldforcepro.reports.jobs.cleanup-interval-ms:900000}")
+    public void purgeExpiredJobs() {
+        for (ReportJob job : reportJobRepository.findByStatusInAndExpiresAtBefore(FINISHED, Instant.now())) {
+            if (job.getFilePath() != null) {
+                deleteQuietly(Paths.get(job.getFilePath()));
+            }
+            job.setFilePath(null);
+            job.setStatus(ReportJobStatus.EXPIRED);
+            reportJobRepository.save(job);
+        }
+    }
+
+    // Jobs queued or running when the application stopped will never finish
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        for (ReportJob job : reportJobRepository.findByStatusIn(ACTIVE)) {
+            finish(job, ReportJobStatus.FAILED, "Interrupted by application restart");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Output of jobs cut off by a crash or restart; runs before the pool exists, so no job is writing
+    private void deletePartialFiles() {
+        try (DirectoryStream<Path> partials = Files.newDirectoryStream(exportRoot, "*.part")) {
+            for (Path partial : partials) {
+                deleteQuietly(partial);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot list partial report files in {}", exportRoot, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete report file {}", path, e);
+        }
+    }
+}
@@ -1,23 +1,41 @@
 package com.fieldforcepro.service;
 
-import com.fieldforcepro.model.AttendanceRecord;
-import com.fieldforcepro.model.Invoice;
-import com.fieldforcepro.model.InvoiceItem;
-import com.fieldforcepro.model.SalesOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fieldforcepro.model.ReportFormat;
+import com.fieldforcepro.model.ReportType;
 import com.fieldforcepro.repository.AttendanceRecordRepository;
-import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.AttendanceRecordRepository.AttendanceReportLine;
 import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.InvoiceRepository.InvoiceKey;
+import com.fieldforcepro.repository.InvoiceRepository.SalesReportLine;
 import com.fieldforcepro.repository.SalesOrderRepository;
+import com.fieldforcepro.repository.SalesOrderRepository.OrdersReportLine;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.lowagie.text.Document;
 import com.lowagie.text.Font;
@@ -28,11 +46,25 @@ import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 @Service
 public class ReportService {
 
+    // Rows kept in memory by SXSSF; older rows are flushed to a compressed temp file
+    private static final int EXCEL_ROW_WINDOW = 200;
+    private static final int EXCEL_MAX_COLUMN_CHARS = 60;
+
+    // Rows buffered in the PDF table before they are laid out and written to the stream
+    private static final int PDF_CHUNK_ROWS = 500;
+    private static final Font PDF_TITLE_FONT = new Font(Font.HELVETICA, 16, Font.BOLD);
+    private static final Font PDF_HEADER_FONT = new Font(Font.HELVETICA, 10, Font.BOLD);
+
+    private static final int TEXT_BUFFER_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 5000;
+
     public record SalesReportRow(
             String invoiceId,
             String invoiceNo,
@@ -65,315 +97,576 @@ public class ReportService {
     ) {}
 
     private final InvoiceRepository invoiceRepository;
-    private final InvoiceItemRepository invoiceItemRepository;
     private final AttendanceRecordRepository attendanceRecordRepository;
     private final SalesOrderRepository salesOrderRepository;
+    private final ObjectMapper objectMapper;
+    private final ReportCache reportCache;
+    private final TransactionTemplate readOnlyTransaction;
 
     public ReportService(
             InvoiceRepository invoiceRepository,
-            InvoiceItemRepository invoiceItemRepository,
             AttendanceRecordRepository attendanceRecordRepository,
-            SalesOrderRepository salesOrderRepository
+            SalesOrderRepository salesOrderRepository,
+            ObjectMapper objectMapper,
+            ReportCache reportCache,
+            PlatformTransactionManager transactionManager
     ) {
         this.invoiceRepository = invoiceRepository;
-        this.invoiceItemRepository = invoiceItemRepository;
         this.attendanceRecordRepository = attendanceRecordRepository;
         this.salesOrderRepository = salesOrderRepository;
+        this.objectMapper = objectMapper;
+        this.reportCache = reportCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    // Cached reports: a hit returns without touching the database (or opening a transaction)
     public List<SalesReportRow> getSalesReport(LocalDate from, LocalDate to, String agentId) {
+        return reportCache.get(ReportType.SALES, from, to, agentId,
+                () -> readOnlyTransaction.execute(tx -> collect(streamSalesReport(from, to, agentId))));
+    }
+
+    public List<AttendanceReportRow> getAttendanceReport(LocalDate from, LocalDate to, String agentId) {
+        return reportCache.get(ReportType.ATTENDANCE, from, to, agentId,
+                () -> readOnlyTransaction.execute(tx -> collect(streamAttendanceReport(from, to, agentId))));
+    }
+
+    public List<OrdersReportRow> getOrdersReport(LocalDate from, LocalDate to, String status) {
+        return reportCache.get(ReportType.ORDERS, from, to, status,
+                () -> readOnlyTransaction.execute(tx -> collect(streamOrdersReport(from, to, status))));
+    }
+
+    private <T> List<T> collect(Stream<T> rows) {
+        try (rows) {
+            return rows.collect(Collectors.toList());
+        }
+    }
+
+    // Keyset pages on (timestamp, id): every page is an index range seek, so deep pages cost the
+    // same as the first. nextCursor is null on the last page.
+    public record ReportPage<T>(List<T> rows, String nextCursor) { }
+
+    // Sales pages by invoice, so pageSize counts invoices and every item of an invoice is on the same page
+    @Transactional(readOnly = true)
+    public ReportPage<SalesReportRow> getSalesReportPage(LocalDate from, LocalDate to, String agentId,
+                                                         String cursor, Integer pageSize) {
         ZoneId zoneId = ZoneId.systemDefault();
-        Instant fromInstant = from.atStartOfDay(zoneId).toInstant();
-        Instant toInstant = to.plusDays(1).atStartOfDay(zoneId).toInstant();
-
-        List<Invoice> invoices = invoiceRepository.findAll();
-        return invoices.stream()
-                .filter(inv -> inv.getCreatedAt() != null
-                        && !inv.getCreatedAt().isBefore(fromInstant)
-                        && inv.getCreatedAt().isBefore(toInstant))
-                .filter(inv -> agentId == null || agentId.isBlank() || agentId.equals(inv.getAgentId()))
-                .flatMap(inv -> {
-                    List<InvoiceItem> items = invoiceItemRepository.findByInvoiceId(inv.getId());
-                    if (items.isEmpty()) {
-                        return List.of(toSalesRow(inv, null)).stream();
-                    }
-                    return items.stream().map(it -> toSalesRow(inv, it));
-                })
-                .collect(Collectors.toList());
-    }
-
-    private SalesReportRow toSalesRow(Invoice invoice, InvoiceItem item) {
-        String customerName = null;
-        if (invoice.getCustomerSnapshotJson() != null && invoice.getCustomerSnapshotJson().contains("\"name\"")) {
-            // Very lightweight extraction; frontend already parses full JSON when needed
-            int idx = invoice.getCustomerSnapshotJson().indexOf("\"name\"");
-            if (idx >= 0) {
-                int colon = invoice.getCustomerSnapshotJson().indexOf(':', idx);
-                int quoteStart = invoice.getCustomerSnapshotJson().indexOf('"', colon + 1);
-                int quoteEnd = invoice.getCustomerSnapshotJson().indexOf('"', quoteStart + 1);
-                if (quoteStart > 0 && quoteEnd > quoteStart) {
-                    customerName = invoice.getCustomerSnapshotJson().substring(quoteStart + 1, quoteEnd);
-                }
-            }
+        int size = pageSize(pageSize);
+        KeysetCursor position = position(cursor, startOf(from, zoneId));
+        List<InvoiceKey> fetched = invoiceRepository.findSalesKeysAfter(
+                position.after(), position.afterId(), endOf(to, zoneId), blankToNull(agentId), PageRequest.of(0, size + 1));
+        ReportPage<InvoiceKey> keys = toPage(fetched, size, InvoiceKey::getCreatedAt, InvoiceKey::getId, key -> key);
+        if (keys.rows().isEmpty()) {
+            return new ReportPage<>(List.of(), null);
         }
-        String productName = item != null ? item.getName() : null;
-        LocalDate invoiceDate = LocalDateTime.ofInstant(invoice.getInvoiceDate(), ZoneId.systemDefault()).toLocalDate();
+        List<SalesReportRow> rows = invoiceRepository
+                .findSalesLines(keys.rows().stream().map(InvoiceKey::getId).toList()).stream()
+                .map(line -> toSalesRow(line, zoneId))
+                .toList();
+        return new ReportPage<>(rows, keys.nextCursor());
+    }
+
+    @Transactional(readOnly = true)
+    public ReportPage<AttendanceReportRow> getAttendanceReportPage(LocalDate from, LocalDate to, String agentId,
+                                                                   String cursor, Integer pageSize) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        int size = pageSize(pageSize);
+        KeysetCursor position = position(cursor, startOf(from, zoneId));
+        List<AttendanceReportLine> fetched = attendanceRecordRepository.findReportLinesAfter(
+                position.after(), position.afterId(), endOf(to, zoneId), blankToNull(agentId), PageRequest.of(0, size + 1));
+        return toPage(fetched, size, AttendanceReportLine::getCheckInTime, AttendanceReportLine::getId,
+                line -> toAttendanceRow(line, zoneId));
+    }
+
+    @Transactional(readOnly = true)
+    public ReportPage<OrdersReportRow> getOrdersReportPage(LocalDate from, LocalDate to, String status,
+                                                           String cursor, Integer pageSize) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        int size = pageSize(pageSize);
+        KeysetCursor position = position(cursor, startOf(from, zoneId));
+        List<OrdersReportLine> fetched = salesOrderRepository.findReportLinesAfter(
+                position.after(), position.afterId(), endOf(to, zoneId), blankToNull(status), PageRequest.of(0, size + 1));
+        return toPage(fetched, size, OrdersReportLine::getCreatedAt, OrdersReportLine::getId,
+                line -> toOrdersRow(line, zoneId));
+    }
+
+    private <L, R> ReportPage<R> toPage(List<L> fetched, int size, Function<L, Instant> timeOf,
+                                        Function<L, String> idOf, Function<L, R> mapper) {
+        boolean more = fetched.size() > size;
+        List<L> page = more ? fetched.subList(0, size) : fetched;
+        String nextCursor = null;
+        if (more) {
+            L last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(timeOf.apply(last), idOf.apply(last)).encode();
+        }
+        return new ReportPage<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    private int pageSize(Integer pageSize) {
+        if (pageSize == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    // The first page starts just before the range; a cursor never moves the scan before the range start
+    private KeysetCursor position(String cursor, Instant rangeStart) {
+        if (cursor == null || cursor.isBlank()) {
+            return new KeysetCursor(rangeStart, "");
+        }
+        KeysetCursor keyset = KeysetCursor.decode(cursor);
+        return keyset.after().isBefore(rangeStart) ? new KeysetCursor(rangeStart, "") : keyset;
+    }
+
+    // The stream* methods read through a forward-only cursor: the caller must consume and
+    // close the stream inside its own read-only transaction.
+    public Stream<SalesReportRow> streamSalesReport(LocalDate from, LocalDate to, String agentId) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return invoiceRepository
+                .streamSalesLines(startOf(from, zoneId), endOf(to, zoneId), blankToNull(agentId))
+                .map(line -> toSalesRow(line, zoneId));
+    }
+
+    public Stream<AttendanceReportRow> streamAttendanceReport(LocalDate from, LocalDate to, String agentId) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return attendanceRecordRepository
+                .streamReportLines(startOf(from, zoneId), endOf(to, zoneId), blankToNull(agentId))
+                .map(line -> toAttendanceRow(line, zoneId));
+    }
+
+    public Stream<OrdersReportRow> streamOrdersReport(LocalDate from, LocalDate to, String status) {
+        ZoneId zoneId = ZoneId.systemDefault();
+        return salesOrderRepository
+                .streamReportLines(startOf(from, zoneId), endOf(to, zoneId), blankToNull(status))
+                .map(line -> toOrdersRow(line, zoneId));
+    }
+
+    private SalesReportRow toSalesRow(SalesReportLine line, ZoneId zoneId) {
+        LocalDate invoiceDate = LocalDateTime.ofInstant(line.getInvoiceDate(), zoneId).toLocalDate();
         return new SalesReportRow(
-                invoice.getId(),
-                invoice.getInvoiceNo(),
-                invoice.getAgentId(),
-                invoice.getAgentName(),
-                customerName,
-                productName,
-                invoice.getTotal(),
-                invoice.getStatus(),
+                line.getInvoiceId(),
+                line.getInvoiceNo(),
+                line.getAgentId(),
+                line.getAgentName(),
+                blankToNull(line.getCustomerName()),
+                line.getProductName(),
+                line.getTotal(),
+                line.getStatus(),
                 invoiceDate
         );
     }
 
-    public List<AttendanceReportRow> getAttendanceReport(LocalDate from, LocalDate to, String agentId) {
-        ZoneId zoneId = ZoneId.systemDefault();
-        Instant fromInstant = from.atStartOfDay(zoneId).toInstant();
-        Instant toInstant = to.plusDays(1).atStartOfDay(zoneId).toInstant();
-
-        List<AttendanceRecord> records = attendanceRecordRepository.findAll();
-        List<AttendanceReportRow> rows = new ArrayList<>();
-        for (AttendanceRecord r : records) {
-            if (r.getCheckInTime() == null) continue;
-            if (r.getCheckInTime().isBefore(fromInstant) || !r.getCheckInTime().isBefore(toInstant)) continue;
-            if (agentId != null && !agentId.isBlank() && !agentId.equals(r.getAgentId())) continue;
-
-            LocalDateTime in = LocalDateTime.ofInstant(r.getCheckInTime(), zoneId);
-            LocalDateTime out = r.getCheckOutTime() != null ? LocalDateTime.ofInstant(r.getCheckOutTime(), zoneId) : null;
-            Long minutes = null;
-            if (out != null) {
-                minutes = java.time.Duration.between(in, out).toMinutes();
+    private AttendanceReportRow toAttendanceRow(AttendanceReportLine line, ZoneId zoneId) {
+        LocalDateTime in = LocalDateTime.ofInstant(line.getCheckInTime(), zoneId);
+        LocalDateTime out = line.getCheckOutTime() != null ? LocalDateTime.ofInstant(line.getCheckOutTime(), zoneId) : null;
+        Long minutes = null;
+        if (out != null) {
+            minutes = java.time.Duration.between(in, out).toMinutes();
+        }
+        return new AttendanceReportRow(
+                line.getAgentId(),
+                line.getAgentName(),
+                in.toLocalDate(),
+                in,
+                out,
+                minutes,
+                line.getStatus()
+        );
+    }
+
+    private OrdersReportRow toOrdersRow(OrdersReportLine line, ZoneId zoneId) {
+        return new OrdersReportRow(
+                line.getId(),
+                line.getOrderNumber(),
+                line.getCustomerName(),
+                line.getAmount(),
+                line.getStatus(),
+                LocalDateTime.ofInstant(line.getCreatedAt(), zoneId).toLocalDate()
+        );
+    }
+
+    private Instant startOf(LocalDate date, ZoneId zoneId) {
+        return date.atStartOfDay(zoneId).toInstant();
+    }
+
+    private Instant endOf(LocalDate date, ZoneId zoneId) {
+        return date.plusDays(1).atStartOfDay(zoneId).toInstant();
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(ReportType type, ReportFormat format, LocalDate from, LocalDate to, String agentId,
+                       String status, OutputStream out) throws IOException {
+        export(type, format, from, to, agentId, status, out, rowsWritten -> { });
+    }
+
+    // Progress receives the running row count; it is called on the exporting thread while the
+    // cursor is open, so it must not touch the database.
+    @Transactional(readOnly = true)
+    public void export(ReportType type, ReportFormat format, LocalDate from, LocalDate to, String agentId,
+                       String status, OutputStream out, LongConsumer progress) throws IOException {
+        String dateRange = "From " + from + " to " + to;
+        switch (type) {
+            case SALES -> {
+                try (Stream<SalesReportRow> rows = counted(streamSalesReport(from, to, agentId), progress)) {
+                    switch (format) {
+                        case EXCEL -> exportSalesToExcel(rows, out);
+                        case PDF -> exportSalesToPdf(rows, "Sales Performance Report", dateRange, out);
+                        case CSV -> exportSalesToCsv(rows, out);
+                        case NDJSON -> writeNdjson(rows, out);
+                    }
+                }
+            }
+            case ATTENDANCE -> {
+                try (Stream<AttendanceReportRow> rows = counted(streamAttendanceReport(from, to, agentId), progress)) {
+                    switch (format) {
+                        case EXCEL -> exportAttendanceToExcel(rows, out);
+                        case PDF -> exportAttendanceToPdf(rows, "Attendance & Visit Report", dateRange, out);
+                        case CSV -> exportAttendanceToCsv(rows, out);
+                        case NDJSON -> writeNdjson(rows, out);
+                    }
+                }
+            }
+            case ORDERS -> {
+                try (Stream<OrdersReportRow> rows = counted(streamOrdersReport(from, to, status), progress)) {
+                    switch (format) {
+                        case EXCEL -> exportOrdersToExcel(rows, out);
+                        case PDF -> exportOrdersToPdf(rows, "Orders / Pipeline Report", dateRange, out);
+                        case CSV -> exportOrdersToCsv(rows, out);
+                        case NDJSON -> writeNdjson(rows, out);
+                    }
+                }
             }
-            rows.add(new AttendanceReportRow(
-                    r.getAgentId(),
-                    r.getAgentName(),
-                    in.toLocalDate(),
-                    in,
-                    out,
-                    minutes,
-                    r.getStatus()
-            ));
         }
-        return rows;
     }
 
-    public List<OrdersReportRow> getOrdersReport(LocalDate from, LocalDate to, String status) {
-        ZoneId zoneId = ZoneId.systemDefault();
-        Instant fromInstant = from.atStartOfDay(zoneId).toInstant();
-        Instant toInstant = to.plusDays(1).atStartOfDay(zoneId).toInstant();
-
-        List<SalesOrder> orders = salesOrderRepository.findAll();
-        List<OrdersReportRow> rows = new ArrayList<>();
-        for (SalesOrder o : orders) {
-            if (o.getCreatedAt() == null) continue;
-            if (o.getCreatedAt().isBefore(fromInstant) || !o.getCreatedAt().isBefore(toInstant)) continue;
-            if (status != null && !status.isBlank() && !status.equalsIgnoreCase(o.getStatus())) continue;
-
-            LocalDate createdDate = LocalDateTime.ofInstant(o.getCreatedAt(), zoneId).toLocalDate();
-            rows.add(new OrdersReportRow(
-                    o.getId(),
-                    o.getOrderNumber(),
-                    o.getCustomerName(),
-                    o.getAmount(),
-                    o.getStatus(),
-                    createdDate
-            ));
+    private <T> Stream<T> counted(Stream<T> rows, LongConsumer progress) {
+        long[] count = {0};
+        return rows.peek(row -> progress.accept(++count[0]));
+    }
+
+    public void exportSalesToExcel(Stream<SalesReportRow> rows, OutputStream out) throws IOException {
+        String[] headers = {"Invoice No", "Agent", "Customer", "Product", "Total", "Status", "Invoice Date"};
+        try (StreamingSheet sheet = new StreamingSheet("Sales", headers)) {
+            rows.forEach(row -> {
+                Row excelRow = sheet.nextRow();
+                sheet.text(excelRow, 0, row.invoiceNo());
+                sheet.text(excelRow, 1, row.agentName() != null ? row.agentName() : row.agentId());
+                sheet.text(excelRow, 2, row.customerName());
+                sheet.text(excelRow, 3, row.productName());
+                sheet.number(excelRow, 4, row.total() != null ? row.total().doubleValue() : 0d);
+                sheet.text(excelRow, 5, row.status());
+                sheet.text(excelRow, 6, row.invoiceDate().toString());
+            });
+            sheet.write(out);
+        }
+    }
+
+    public void exportAttendanceToExcel(Stream<AttendanceReportRow> rows, OutputStream out) throws IOException {
+        String[] headers = {"Agent", "Date", "Check-in", "Check-out", "Duration (min)", "Status"};
+        try (StreamingSheet sheet = new StreamingSheet("Attendance", headers)) {
+            rows.forEach(row -> {
+                Row excelRow = sheet.nextRow();
+                sheet.text(excelRow, 0, row.agentName() != null ? row.agentName() : row.agentId());
+                sheet.text(excelRow, 1, row.date().toString());
+                sheet.text(excelRow, 2, row.checkInTime() != null ? row.checkInTime().toString() : "");
+                sheet.text(excelRow, 3, row.checkOutTime() != null ? row.checkOutTime().toString() : "");
+                sheet.number(excelRow, 4, row.totalDurationMinutes() != null ? row.totalDurationMinutes() : 0L);
+                sheet.text(excelRow, 5, row.status());
+            });
+            sheet.write(out);
         }
-        return rows;
     }
 
-    public byte[] exportSalesToExcel(List<SalesReportRow> rows) throws java.io.IOException {
+    public void exportOrdersToExcel(Stream<OrdersReportRow> rows, OutputStream out) throws IOException {
+        String[] headers = {"Order No", "Customer", "Amount", "Status", "Created"};
+        try (StreamingSheet sheet = new StreamingSheet("Orders", headers)) {
+            rows.forEach(row -> {
+                Row excelRow = sheet.nextRow();
+                sheet.text(excelRow, 0, row.orderNumber());
+                sheet.text(excelRow, 1, row.customerName());
+                sheet.number(excelRow, 2, row.amount() != null ? row.amount().doubleValue() : 0d);
+                sheet.text(excelRow, 3, row.status());
+                sheet.text(excelRow, 4, row.createdDate().toString());
+            });
+            sheet.write(out);
+        }
+    }
+
+    // Sliding-window XLSX sheet. Column widths are tracked while rows are written, since
+    // autoSizeColumn cannot see rows that have already been flushed out of the window.
+    private static final class StreamingSheet implements AutoCloseable {
+
+        private final SXSSFWorkbook workbook;
+        private final Sheet sheet;
+        private final int[] widths;
+        private int nextRowIndex;
+
+        StreamingSheet(String name, String[] headers) {
+            workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet(name);
+            widths = new int[headers.length];
+
+            CellStyle style = workbook.createCellStyle();
+            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            style.setFont(headerFont);
+            Row header = nextRow();
+            for (int i = 0; i < headers.length; i++) {
+                text(header, i, headers[i]).setCellStyle(style);
+            }
+        }
+
+        Row nextRow() {
+            return sheet.createRow(nextRowIndex++);
+        }
+
+        Cell text(Row row, int column, String value) {
+            Cell cell = row.createCell(column);
+            String text = value != null ? value : "";
+            cell.setCellValue(text);
+            track(column, text.length());
+            return cell;
+        }
+
+        void number(Row row, int column, double value) {
+            row.createCell(column).setCellValue(value);
+            track(column, Double.toString(value).length());
+        }
+
+        void number(Row row, int column, long value) {
+            row.createCell(column).setCellValue(value);
+            track(column, Long.toString(value).length());
+        }
+
+        private void track(int column, int length) {
+            if (length > widths[column]) {
+                widths[column] = length;
+            }
+        }
+
+        void write(OutputStream out) throws IOException {
+            for (int i = 0; i < widths.length; i++) {
+                sheet.setColumnWidth(i, Math.min(widths[i] + 2, EXCEL_MAX_COLUMN_CHARS) * 256);
+            }
+            workbook.write(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public void exportSalesToPdf(Stream<SalesReportRow> rows, String title, String dateRange, OutputStream out) {
         String[] headers = {"Invoice No", "Agent", "Customer", "Product", "Total", "Status", "Invoice Date"};
-        Workbook wb = new XSSFWorkbook();
-        Sheet sheet = wb.createSheet("Sales");
-        createHeaderRow(wb, sheet, headers);
-        int r = 1;
-        for (SalesReportRow row : rows) {
-            Row excelRow = sheet.createRow(r++);
-            excelRow.createCell(0).setCellValue(row.invoiceNo());
-            excelRow.createCell(1).setCellValue(row.agentName() != null ? row.agentName() : row.agentId());
-            excelRow.createCell(2).setCellValue(row.customerName() != null ? row.customerName() : "");
-            excelRow.createCell(3).setCellValue(row.productName() != null ? row.productName() : "");
-            excelRow.createCell(4).setCellValue(row.total() != null ? row.total().doubleValue() : 0d);
-            excelRow.createCell(5).setCellValue(row.status());
-            excelRow.createCell(6).setCellValue(row.invoiceDate().toString());
-        }
-        autosize(sheet, headers.length);
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        wb.write(bos);
-        wb.close();
-        return bos.toByteArray();
-    }
-
-    public byte[] exportAttendanceToExcel(List<AttendanceReportRow> rows) throws java.io.IOException {
+        try (StreamingPdfTable table = new StreamingPdfTable(out, title, dateRange, headers)) {
+            rows.forEach(row -> table.addRow(
+                    row.invoiceNo(),
+                    row.agentName() != null ? row.agentName() : row.agentId(),
+                    row.customerName(),
+                    row.productName(),
+                    row.total() != null ? row.total().toPlainString() : "0",
+                    row.status(),
+                    row.invoiceDate().toString()
+            ));
+            table.finish();
+        }
+    }
+
+    public void exportAttendanceToPdf(Stream<AttendanceReportRow> rows, String title, String dateRange, OutputStream out) {
         String[] headers = {"Agent", "Date", "Check-in", "Check-out", "Duration (min)", "Status"};
-        Workbook wb = new XSSFWorkbook();
-        Sheet sheet = wb.createSheet("Attendance");
-        createHeaderRow(wb, sheet, headers);
-        int r = 1;
-        for (AttendanceReportRow row : rows) {
-            Row excelRow = sheet.createRow(r++);
-            excelRow.createCell(0).setCellValue(row.agentName() != null ? row.agentName() : row.agentId());
-            excelRow.createCell(1).setCellValue(row.date().toString());
-            excelRow.createCell(2).setCellValue(row.checkInTime() != null ? row.checkInTime().toString() : "");
-            excelRow.createCell(3).setCellValue(row.checkOutTime() != null ? row.checkOutTime().toString() : "");
-            excelRow.createCell(4).setCellValue(row.totalDurationMinutes() != null ? row.totalDurationMinutes() : 0L);
-            excelRow.createCell(5).setCellValue(row.status());
-        }
-        autosize(sheet, headers.length);
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        wb.write(bos);
-        wb.close();
-        return bos.toByteArray();
-    }
-
-    public byte[] exportOrdersToExcel(List<OrdersReportRow> rows) throws java.io.IOException {
+        try (StreamingPdfTable table = new StreamingPdfTable(out, title, dateRange, headers)) {
+            rows.forEach(row -> table.addRow(
+                    row.agentName() != null ? row.agentName() : row.agentId(),
+                    row.date().toString(),
+                    row.checkInTime() != null ? row.checkInTime().toString() : "",
+                    row.checkOutTime() != null ? row.checkOutTime().toString() : "",
+                    row.totalDurationMinutes() != null ? row.totalDurationMinutes().toString() : "",
+                    row.status()
+            ));
+            table.finish();
+        }
+    }
+
+    public void exportOrdersToPdf(Stream<OrdersReportRow> rows, String title, String dateRange, OutputStream out) {
         String[] headers = {"Order No", "Customer", "Amount", "Status", "Created"};
-        Workbook wb = new XSSFWorkbook();
-        Sheet sheet = wb.createSheet("Orders");
-        createHeaderRow(wb, sheet, headers);
-        int r = 1;
-        for (OrdersReportRow row : rows) {
-            Row excelRow = sheet.createRow(r++);
-            excelRow.createCell(0).setCellValue(row.orderNumber());
-            excelRow.createCell(1).setCellValue(row.customerName());
-            excelRow.createCell(2).setCellValue(row.amount() != null ? row.amount().doubleValue() : 0d);
-            excelRow.createCell(3).setCellValue(row.status());
-            excelRow.createCell(4).setCellValue(row.createdDate().toString());
-        }
-        autosize(sheet, headers.length);
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        wb.write(bos);
-        wb.close();
-        return bos.toByteArray();
-    }
-
-    private void createHeaderRow(Workbook wb, Sheet sheet, String[] headers) {
-        Row header = sheet.createRow(0);
-        CellStyle style = wb.createCellStyle();
-        org.apache.poi.ss.usermodel.Font headerFont = wb.createFont();
-        headerFont.setBold(true);
-        style.setFont(headerFont);
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(style);
-        }
-    }
-
-    private void autosize(Sheet sheet, int columns) {
-        for (int i = 0; i < columns; i++) {
-            sheet.autoSizeColumn(i);
-        }
-    }
-
-    public byte[] exportSalesToPdf(List<SalesReportRow> rows, String title, String dateRange) throws java.io.IOException {
-        Document document = new Document(PageSize.A4.rotate());
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        PdfWriter.getInstance(document, bos);
-        document.open();
-
-        Font titleFont = new Font(Font.HELVETICA, 16, Font.BOLD);
-        document.add(new Paragraph("Candor Water Tech - " + title, titleFont));
-        document.add(new Paragraph(dateRange));
-        document.add(new Paragraph(" "));
-
-        PdfPTable table = new PdfPTable(7);
-        addHeaderCell(table, "Invoice No");
-        addHeaderCell(table, "Agent");
-        addHeaderCell(table, "Customer");
-        addHeaderCell(table, "Product");
-        addHeaderCell(table, "Total");
-        addHeaderCell(table, "Status");
-        addHeaderCell(table, "Invoice Date");
-
-        for (SalesReportRow row : rows) {
-            table.addCell(row.invoiceNo());
-            table.addCell(row.agentName() != null ? row.agentName() : row.agentId());
-            table.addCell(row.customerName() != null ? row.customerName() : "");
-            table.addCell(row.productName() != null ? row.productName() : "");
-            table.addCell(row.total() != null ? row.total().toPlainString() : "0");
-            table.addCell(row.status());
-            table.addCell(row.invoiceDate().toString());
-        }
-
-        document.add(table);
-        document.close();
-        return bos.toByteArray();
-    }
-
-    public byte[] exportAttendanceToPdf(List<AttendanceReportRow> rows, String title, String dateRange) throws java.io.IOException {
-        Document document = new Document(PageSize.A4.rotate());
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        PdfWriter.getInstance(document, bos);
-        document.open();
-
-        Font titleFont = new Font(Font.HELVETICA, 16, Font.BOLD);
-        document.add(new Paragraph("Candor Water Tech - " + title, titleFont));
-        document.add(new Paragraph(dateRange));
-        document.add(new Paragraph(" "));
-
-        PdfPTable table = new PdfPTable(6);
-        addHeaderCell(table, "Agent");
-        addHeaderCell(table, "Date");
-        addHeaderCell(table, "Check-in");
-        addHeaderCell(table, "Check-out");
-        addHeaderCell(table, "Duration (min)");
-        addHeaderCell(table, "Status");
-
-        for (AttendanceReportRow row : rows) {
-            table.addCell(row.agentName() != null ? row.agentName() : row.agentId());
-            table.addCell(row.date().toString());
-            table.addCell(row.checkInTime() != null ? row.checkInTime().toString() : "");
-            table.addCell(row.checkOutTime() != null ? row.checkOutTime().toString() : "");
-            table.addCell(row.totalDurationMinutes() != null ? row.totalDurationMinutes().toString() : "");
-            table.addCell(row.status());
-        }
-
-        document.add(table);
-        document.close();
-        return bos.toByteArray();
-    }
-
-    public byte[] exportOrdersToPdf(List<OrdersReportRow> rows, String title, String dateRange) throws java.io.IOException {
-        Document document = new Document(PageSize.A4.rotate());
-        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-        PdfWriter.getInstance(document, bos);
-        document.open();
-
-        Font titleFont = new Font(Font.HELVETICA, 16, Font.BOLD);
-        document.add(new Paragraph("Candor Water Tech - " + title, titleFont));
-        document.add(new Paragraph(dateRange));
-        document.add(new Paragraph(" "));
-
-        PdfPTable table = new PdfPTable(5);
-        addHeaderCell(table, "Order No");
-        addHeaderCell(table, "Customer");
-        addHeaderCell(table, "Amount");
-        addHeaderCell(table, "Status");
-        addHeaderCell(table, "Created");
-
-        for (OrdersReportRow row : rows) {
-            table.addCell(row.orderNumber());
-            table.addCell(row.customerName());
-            table.addCell(row.amount() != null ? row.amount().toPlainString() : "0");
-            table.addCell(row.status());
-            table.addCell(row.createdDate().toString());
-        }
-
-        document.add(table);
-        document.close();
-        return bos.toByteArray();
-    }
-
-    private void addHeaderCell(PdfPTable table, String text) {
-        Font font = new Font(Font.HELVETICA, 10, Font.BOLD);
-        PdfPCell cell = new PdfPCell(new Phrase(text, font));
-        table.addCell(cell);
+        try (StreamingPdfTable table = new StreamingPdfTable(out, title, dateRange, headers)) {
+            rows.forEach(row -> table.addRow(
+                    row.orderNumber(),
+                    row.customerName(),
+                    row.amount() != null ? row.amount().toPlainString() : "0",
+                    row.status(),
+                    row.createdDate().toString()
+            ));
+            table.finish();
+        }
+    }
+
+    // PDF table bound directly to the output stream. Rows are handed to the document every
+    // PDF_CHUNK_ROWS rows so finished pages are written out and released; the header row
+    // repeats on every page.
+    private static final class StreamingPdfTable implements AutoCloseable {
+
+        private final Document document;
+        private final PdfPTable table;
+        private int pendingRows;
+
+        StreamingPdfTable(OutputStream out, String title, String dateRange, String[] headers) {
+            document = new Document(PageSize.A4.rotate());
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+
+            document.add(new Paragraph("Candor Water Tech - " + title, PDF_TITLE_FONT));
+            document.add(new Paragraph(dateRange));
+            document.add(new Paragraph(" "));
+
+            table = new PdfPTable(headers.length);
+            table.setHeaderRows(1);
+            table.setComplete(false);
+            for (String header : headers) {
+                table.addCell(new PdfPCell(new Phrase(header, PDF_HEADER_FONT)));
+            }
+        }
+
+        void addRow(String... cells) {
+            for (String cell : cells) {
+                table.addCell(cell != null ? cell : "");
+            }
+            if (++pendingRows >= PDF_CHUNK_ROWS) {
+                document.add(table);
+                pendingRows = 0;
+            }
+        }
+
+        void finish() {
+            table.setComplete(true);
+            document.add(table);
+        }
+
+        @Override
+        public void close() {
+            document.close();
+        }
+    }
+
+    public void exportSalesToCsv(Stream<SalesReportRow> rows, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.row("Invoice Id", "Invoice No", "Agent Id", "Agent", "Customer", "Product", "Total", "Status", "Invoice Date");
+        rows.forEach(row -> csv.row(
+                row.invoiceId(),
+                row.invoiceNo(),
+                row.agentId(),
+                row.agentName(),
+                row.customerName(),
+                row.productName(),
+                row.total() != null ? row.total().toPlainString() : null,
+                row.status(),
+                row.invoiceDate().toString()
+        ));
+        csv.finish();
+    }
+
+    public void exportAttendanceToCsv(Stream<AttendanceReportRow> rows, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.row("Agent Id", "Agent", "Date", "Check-in", "Check-out", "Duration (min)", "Status");
+        rows.forEach(row -> csv.row(
+                row.agentId(),
+                row.agentName(),
+                row.date().toString(),
+                row.checkInTime() != null ? row.checkInTime().toString() : null,
+                row.checkOutTime() != null ? row.checkOutTime().toString() : null,
+                row.totalDurationMinutes() != null ? row.totalDurationMinutes().toString() : null,
+                row.status()
+        ));
+        csv.finish();
+    }
+
+    public void exportOrdersToCsv(Stream<OrdersReportRow> rows, OutputStream out) throws IOException {
+        CsvWriter csv = new CsvWriter(out);
+        csv.row("Order Id", "Order No", "Customer", "Amount", "Status", "Created");
+        rows.forEach(row -> csv.row(
+                row.orderId(),
+                row.orderNumber(),
+                row.customerName(),
+                row.amount() != null ? row.amount().toPlainString() : null,
+                row.status(),
+                row.createdDate().toString()
+        ));
+        csv.finish();
+    }
+
+    // One JSON object per line, serialized exactly like the JSON report endpoints
+    public void writeNdjson(Stream<?> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), TEXT_BUFFER_SIZE);
+        SequenceWriter sequence = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(writer);
+        Iterator<?> iterator = rows.iterator();
+        boolean any = iterator.hasNext();
+        while (iterator.hasNext()) {
+            sequence.write(iterator.next());
+        }
+        sequence.flush();
+        if (any) {
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    // Minimal RFC 4180 writer over a buffered UTF-8 stream; never closes the target
+    private static final class CsvWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), TEXT_BUFFER_SIZE);
+        }
+
+        void row(String... values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeValue(values[i]);
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeValue(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        void finish() throws IOException {
+            writer.flush();
+        }
     }
 }
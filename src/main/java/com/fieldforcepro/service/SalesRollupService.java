@@ -0,0 +1,322 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.model.SalesDailyByAgent;
+import com.fieldforcepro.model.SalesDailyByProduct;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository.RollupItemLine;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.InvoiceRepository.RollupInvoiceLine;
+import com.fieldforcepro.repository.SalesDailyByAgentRepository;
+import com.fieldforcepro.repository.SalesDailyByProductRepository;
+import com.fieldforcepro.repository.SalesRollupLockRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the sales_daily_by_agent and sales_daily_by_product rollups.
+ *
+ * InvoiceService captures an invoice's {@link Contribution} before and after each write and the
+ * difference is applied with atomic upserts in the same transaction, so the rollups always match
+ * the committed invoices. {@link #rebuild()} recomputes both tables from scratch for repairs.
+ *
+ * Deltas and rebuilds are serialised through the sales_rollup_lock row: every delta locks it shared
+ * in the writer's transaction and a rebuild locks it exclusively before reading. A rebuild therefore
+ * starts after in-flight writers commit, and writers that arrive meanwhile apply their delta to the
+ * rebuilt tables, so no committed change is lost between the rebuild's read and its delete.
+ * Days are taken from the invoice createdAt in the server time zone, like the sales report.
+ */
+@Service
+public class SalesRollupService {
+
+    private final SalesDailyByAgentRepository agentRollupRepository;
+    private final SalesDailyByProductRepository productRollupRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemRepository itemRepository;
+    private final SalesRollupLockRepository lockRepository;
+
+    public SalesRollupService(SalesDailyByAgentRepository agentRollupRepository,
+                              SalesDailyByProductRepository productRollupRepository,
+                              InvoiceRepository invoiceRepository,
+                              InvoiceItemRepository itemRepository,
+                              SalesRollupLockRepository lockRepository) {
+        this.agentRollupRepository = agentRollupRepository;
+        this.productRollupRepository = productRollupRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.itemRepository = itemRepository;
+        this.lockRepository = lockRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void onReady() {
+        lockRepository.ensureRow();
+    }
+
+    public record ProductLine(long productId, String productName, long lineCount, long quantity, BigDecimal lineTotal) { }
+
+    // What a single invoice adds to the rollups; lines are grouped per product and sorted by id
+    public record Contribution(
+            LocalDate salesDate,
+            String agentId,
+            String status,
+            BigDecimal subtotal,
+            BigDecimal taxAmount,
+            BigDecimal total,
+            List<ProductLine> lines
+    ) { }
+
+    public record DailyAgentRow(
+            LocalDate salesDate,
+            String agentId,
+            String status,
+            long invoiceCount,
+            BigDecimal subtotal,
+            BigDecimal taxAmount,
+            BigDecimal total
+    ) { }
+
+    public record DailyProductRow(
+            LocalDate salesDate,
+            long productId,
+            String productName,
+            String status,
+            long lineCount,
+            long quantity,
+            BigDecimal lineTotal
+    ) { }
+
+    public record RebuildResult(long invoices, long lines, int agentRows, int productRows) { }
+
+    public Contribution contributionOf(Invoice invoice, List<InvoiceItem> items) {
+        Map<Long, ProductLine> lines = new TreeMap<>();
+        if (items != null) {
+            for (InvoiceItem item : items) {
+                long productId = item.getProductId() != null ? item.getProductId() : 0L;
+                ProductLine line = new ProductLine(productId, item.getName(), 1,
+                        item.getQuantity() != null ? item.getQuantity() : 0, nullSafe(item.getLineTotal()));
+                lines.merge(productId, line, SalesRollupService::merge);
+            }
+        }
+        return new Contribution(
+                dayOf(invoice.getCreatedAt()),
+                invoice.getAgentId(),
+                invoice.getStatus(),
+                nullSafe(invoice.getSubtotal()),
+                nullSafe(invoice.getTaxAmount()),
+                nullSafe(invoice.getTotal()),
+                List.copyOf(lines.values())
+        );
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Contribution contribution) {
+        lockRepository.lockShared();
+        apply(contribution, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Contribution contribution) {
+        lockRepository.lockShared();
+        apply(contribution, -1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replace(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        lockRepository.lockShared();
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    // Bulk form of replace: the deltas of all pairs are summed first, so each affected rollup row
+    // gets one upsert however many invoices fall on it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void replaceAll(List<Contribution> before, List<Contribution> after) {
+        record AgentKey(LocalDate salesDate, String agentId, String status) { }
+        record ProductKey(LocalDate salesDate, long productId, String status) { }
+
+        Map<AgentKey, SalesDailyByAgent> agentDeltas = new LinkedHashMap<>();
+        Map<ProductKey, SalesDailyByProduct> productDeltas = new LinkedHashMap<>();
+        for (int sign = -1; sign <= 1; sign += 2) {
+            BigDecimal factor = BigDecimal.valueOf(sign);
+            for (Contribution contribution : sign < 0 ? before : after) {
+                if (contribution == null || contribution.salesDate() == null) {
+                    continue;
+                }
+                SalesDailyByAgent agentDelta = agentDeltas.computeIfAbsent(
+                        new AgentKey(contribution.salesDate(), contribution.agentId(), contribution.status()),
+                        k -> SalesDailyByAgent.builder()
+                                .salesDate(k.salesDate()).agentId(k.agentId()).status(k.status())
+                                .subtotal(BigDecimal.ZERO).taxAmount(BigDecimal.ZERO).total(BigDecimal.ZERO)
+                                .build());
+                agentDelta.setInvoiceCount(agentDelta.getInvoiceCount() + sign);
+                agentDelta.setSubtotal(agentDelta.getSubtotal().add(contribution.subtotal().multiply(factor)));
+                agentDelta.setTaxAmount(agentDelta.getTaxAmount().add(contribution.taxAmount().multiply(factor)));
+                agentDelta.setTotal(agentDelta.getTotal().add(contribution.total().multiply(factor)));
+                for (ProductLine line : contribution.lines()) {
+                    SalesDailyByProduct productDelta = productDeltas.computeIfAbsent(
+                            new ProductKey(contribution.salesDate(), line.productId(), contribution.status()),
+                            k -> SalesDailyByProduct.builder()
+                                    .salesDate(k.salesDate()).productId(k.productId()).status(k.status())
+                                    .lineTotal(BigDecimal.ZERO)
+                                    .build());
+                    if (sign > 0 && line.productName() != null) {
+                        productDelta.setProductName(line.productName());
+                    }
+                    productDelta.setLineCount(productDelta.getLineCount() + sign * line.lineCount());
+                    productDelta.setQuantity(productDelta.getQuantity() + sign * line.quantity());
+                    productDelta.setLineTotal(productDelta.getLineTotal().add(line.lineTotal().multiply(factor)));
+                }
+            }
+        }
+
+        lockRepository.lockShared();
+        for (SalesDailyByAgent delta : agentDeltas.values()) {
+            if (delta.getInvoiceCount() != 0 || delta.getTotal().signum() != 0 || delta.getSubtotal().signum() != 0
+                    || delta.getTaxAmount().signum() != 0) {
+                agentRollupRepository.applyDelta(delta.getSalesDate(), delta.getAgentId(), delta.getStatus(),
+                        delta.getInvoiceCount(), delta.getSubtotal(), delta.getTaxAmount(), delta.getTotal());
+            }
+        }
+        for (SalesDailyByProduct delta : productDeltas.values()) {
+            if (delta.getLineCount() != 0 || delta.getQuantity() != 0 || delta.getLineTotal().signum() != 0) {
+                productRollupRepository.applyDelta(delta.getSalesDate(), delta.getProductId(), delta.getProductName(),
+                        delta.getStatus(), delta.getLineCount(), delta.getQuantity(), delta.getLineTotal());
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyAgentRow> getDailyByAgent(LocalDate from, LocalDate to, String agentId) {
+        String agentFilter = agentId == null || agentId.isBlank() ? null : agentId;
+        return agentRollupRepository.findRange(from, to, agentFilter).stream()
+                .map(r -> new DailyAgentRow(r.getSalesDate(), r.getAgentId(), r.getStatus(),
+                        r.getInvoiceCount(), r.getSubtotal(), r.getTaxAmount(), r.getTotal()))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyProductRow> getDailyByProduct(LocalDate from, LocalDate to, Long productId) {
+        return productRollupRepository.findRange(from, to, productId).stream()
+                .map(r -> new DailyProductRow(r.getSalesDate(), r.getProductId(), r.getProductName(), r.getStatus(),
+                        r.getLineCount(), r.getQuantity(), r.getLineTotal()))
+                .toList();
+    }
+
+    // Recomputes both rollups from invoices and items in one transaction
+    @Transactional
+    public RebuildResult rebuild() {
+        record AgentKey(LocalDate salesDate, String agentId, String status) { }
+        record ProductKey(LocalDate salesDate, long productId, String status) { }
+
+        // Taken before the first read, so the snapshot includes every delta already applied
+        if (lockRepository.lockExclusive().isEmpty()) {
+            // Before the first onReady, e.g. from the datagen runner
+            lockRepository.ensureRow();
+            lockRepository.lockExclusive();
+        }
+
+        Map<AgentKey, SalesDailyByAgent> agentRows = new HashMap<>();
+        long invoices = 0;
+        try (Stream<RollupInvoiceLine> stream = invoiceRepository.streamRollupInvoices()) {
+            for (RollupInvoiceLine line : (Iterable<RollupInvoiceLine>) stream::iterator) {
+                invoices++;
+                AgentKey key = new AgentKey(dayOf(line.getCreatedAt()), line.getAgentId(), line.getStatus());
+                SalesDailyByAgent row = agentRows.computeIfAbsent(key, k -> SalesDailyByAgent.builder()
+                        .salesDate(k.salesDate()).agentId(k.agentId()).status(k.status())
+                        .subtotal(BigDecimal.ZERO).taxAmount(BigDecimal.ZERO).total(BigDecimal.ZERO)
+                        .build());
+                row.setInvoiceCount(row.getInvoiceCount() + 1);
+                row.setSubtotal(row.getSubtotal().add(nullSafe(line.getSubtotal())));
+                row.setTaxAmount(row.getTaxAmount().add(nullSafe(line.getTaxAmount())));
+                row.setTotal(row.getTotal().add(nullSafe(line.getTotal())));
+            }
+        }
+
+        Map<ProductKey, SalesDailyByProduct> productRows = new HashMap<>();
+        long lines = 0;
+        try (Stream<RollupItemLine> stream = itemRepository.streamRollupItems()) {
+            for (RollupItemLine line : (Iterable<RollupItemLine>) stream::iterator) {
+                lines++;
+                long productId = line.getProductId() != null ? line.getProductId() : 0L;
+                ProductKey key = new ProductKey(dayOf(line.getCreatedAt()), productId, line.getStatus());
+                SalesDailyByProduct row = productRows.computeIfAbsent(key, k -> SalesDailyByProduct.builder()
+                        .salesDate(k.salesDate()).productId(k.productId()).status(k.status())
+                        .lineTotal(BigDecimal.ZERO)
+                        .build());
+                if (line.getName() != null) {
+                    row.setProductName(line.getName());
+                }
+                row.setLineCount(row.getLineCount() + 1);
+                row.setQuantity(row.getQuantity() + (line.getQuantity() != null ? line.getQuantity() : 0));
+                row.setLineTotal(row.getLineTotal().add(nullSafe(line.getLineTotal())));
+            }
+        }
+
+        agentRollupRepository.deleteAllRows();
+        productRollupRepository.deleteAllRows();
+        agentRollupRepository.saveAll(agentRows.values());
+        productRollupRepository.saveAll(productRows.values());
+        lockRepository.markRebuilt(Instant.now());
+        return new RebuildResult(invoices, lines, agentRows.size(), productRows.size());
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution == null || contribution.salesDate() == null) {
+            return;
+        }
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        agentRollupRepository.applyDelta(
+                contribution.salesDate(),
+                contribution.agentId(),
+                contribution.status(),
+                sign,
+                contribution.subtotal().multiply(factor),
+                contribution.taxAmount().multiply(factor),
+                contribution.total().multiply(factor)
+        );
+        for (ProductLine line : contribution.lines()) {
+            productRollupRepository.applyDelta(
+                    contribution.salesDate(),
+                    line.productId(),
+                    sign > 0 ? line.productName() : null,
+                    contribution.status(),
+                    sign * line.lineCount(),
+                    sign * line.quantity(),
+                    line.lineTotal().multiply(factor)
+            );
+        }
+    }
+
+    private static ProductLine merge(ProductLine a, ProductLine b) {
+        return new ProductLine(a.productId(), a.productName() != null ? a.productName() : b.productName(),
+                a.lineCount() + b.lineCount(), a.quantity() + b.quantity(), a.lineTotal().add(b.lineTotal()));
+    }
+
+    private LocalDate dayOf(Instant instant) {
+        return instant != null ? LocalDate.ofInstant(instant, ZoneId.systemDefault()) : null;
+    }
+
+    private static BigDecimal nullSafe(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
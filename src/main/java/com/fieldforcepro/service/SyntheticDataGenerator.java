@@ -0,0 +1,790 @@
+package com.fieldforcepro.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills the schema with a production-sized synthetic dataset for performance work.
+ *
+ * Enabled with the "datagen" profile (see application-datagen.properties for the volumes). Rows are
+ * written with JDBC batch inserts from a fixed pool of worker threads. Every chunk draws from its own
+ * random stream derived from (seed, table, chunk), so the same seed and end date always produce the
+ * same dataset regardless of thread scheduling. Generation is skipped when a previous run's agents
+ * are already present.
+ */
+@Component
+@Profile("datagen")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String EMAIL_DOMAIN = "@datagen.fieldforcepro.local";
+    private static final BigDecimal GST_RATE = new BigDecimal("0.18");
+    // Each invoice owns this many item ids, so an item's id depends only on its invoice and line
+    private static final int MAX_ITEMS_PER_INVOICE = 8;
+
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Rohan", "Karan", "Rahul", "Amit", "Sandeep",
+            "Priya", "Ananya", "Sneha", "Pooja", "Neha", "Kavya", "Riya", "Meera", "Isha", "Divya",
+            "Vikram", "Suresh", "Manoj", "Nikhil", "Prakash", "Ganesh", "Mahesh", "Sachin", "Omkar", "Tejas"
+    };
+    private static final String[] LAST_NAMES = {
+            "Patil", "Deshmukh", "Kulkarni", "Joshi", "Shinde", "Pawar", "Jadhav", "More", "Chavan", "Gaikwad",
+            "Sharma", "Verma", "Gupta", "Singh", "Mehta", "Shah", "Iyer", "Nair", "Reddy", "Rao"
+    };
+    private static final String[] BUSINESS_PREFIXES = {
+            "Shree", "Sai", "Om", "Jai", "Ganesh", "Laxmi", "Krishna", "Mahalaxmi", "Royal", "National",
+            "Sunrise", "Bharat", "Pioneer", "Classic", "Prime", "Star", "Galaxy", "Everest", "Green", "Blue"
+    };
+    private static final String[] BUSINESS_SUFFIXES = {
+            "Traders", "Enterprises", "Industries", "Hotels", "Hospital", "Dairy", "Foods", "Pharma",
+            "Residency", "Builders", "Agro", "Textiles", "Motors", "Clinic", "School", "Society"
+    };
+    private static final String[] SEGMENTS = {"Residential", "Commercial", "Industrial", "Hospitality", "Healthcare", "Institutional"};
+    private static final String[] PRODUCT_CATEGORIES = {"Purifiers", "Filters", "Membranes", "Pumps", "Softeners", "Spares", "Chemicals", "Service"};
+    private static final String[] PRODUCT_KINDS = {"RO Purifier", "UV Purifier", "Sediment Filter", "Carbon Filter", "RO Membrane",
+            "Booster Pump", "Water Softener", "Antiscalant", "Dosing Pump", "Pressure Vessel", "AMC Plan", "Filter Housing"};
+    private static final String[] ACTIVITY_TYPES = {"Site visit", "Product demo", "Installation", "Service call",
+            "Payment follow-up", "Water test", "AMC renewal", "Complaint resolution"};
+    private static final String[] LEAD_SOURCES = {"Website", "Referral", "Walk-in", "Cold Call", "Exhibition", "IndiaMART", "Dealer"};
+    private static final String[] COMMENT_TEMPLATES = {
+            "Called customer, asked to follow up next week", "Shared quotation over WhatsApp",
+            "Site visit done, water TDS measured", "Customer comparing with competitor pricing",
+            "Demo scheduled", "Decision maker unavailable", "Negotiating on installation charges",
+            "Requested revised quotation with AMC", "Payment terms discussed", "Customer not reachable"
+    };
+    private static final String[] ORDER_STATUSES = {"PENDING", "CONFIRMED", "DISPATCHED", "DELIVERED", "CANCELLED"};
+
+    // Home bases for agents: (name, latitude, longitude)
+    private static final Object[][] CITIES = {
+            {"Pune", 18.5204, 73.8567}, {"Mumbai", 19.0760, 72.8777}, {"Nashik", 19.9975, 73.7898},
+            {"Nagpur", 21.1458, 79.0882}, {"Aurangabad", 19.8762, 75.3433}, {"Kolhapur", 16.7050, 74.2433},
+            {"Solapur", 17.6599, 75.9064}, {"Thane", 19.2183, 72.9781}, {"Satara", 17.6805, 74.0183},
+            {"Ahmednagar", 19.0948, 74.7480}
+    };
+
+    private record Agent(long id, String name, String email, int city, double latitude, double longitude) { }
+
+    private record Product(long id, String name, String sku, BigDecimal price) { }
+
+    private record Customer(String id, String name, String city, String phone) { }
+
+    private final DataSource dataSource;
+    private final SalesRollupService salesRollupService;
+    private final InvoiceItemIdAlignment invoiceItemIdAlignment;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationContext applicationContext;
+
+    private final long seed;
+    private final LocalDate endDate;
+    private final int years;
+    private final int threads;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int agentCount;
+    private final int productCount;
+    private final int customerCount;
+    private final long locationCount;
+    private final long invoiceCount;
+    private final long salesOrderCount;
+    private final long leadCount;
+    private final long activityCount;
+    private final boolean exitWhenDone;
+
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final Map<String, AtomicLong> inserted = new ConcurrentHashMap<>();
+    // Highest invoice_items id before this run; set before any chunk is submitted
+    private long itemIdBase;
+
+    public SyntheticDataGenerator(
+            DataSource dataSource,
+            SalesRollupService salesRollupService,
+            InvoiceItemIdAlignment invoiceItemIdAlignment,
+            PasswordEncoder passwordEncoder,
+            ApplicationContext applicationContext,
+            @Value("${fieldforcepro.datagen.seed:42}") long seed,
+            @Value("${fieldforcepro.datagen.end-date:}") String endDate,
+            @Value("${fieldforcepro.datagen.years:2}") int years,
+            @Value("${fieldforcepro.datagen.threads:4}") int threads,
+            @Value("${fieldforcepro.datagen.batch-size:1000}") int batchSize,
+            @Value("${fieldforcepro.datagen.chunk-size:10000}") int chunkSize,
+            @Value("${fieldforcepro.datagen.agents:200}") int agentCount,
+            @Value("${fieldforcepro.datagen.products:500}") int productCount,
+            @Value("${fieldforcepro.datagen.customers:20000}") int customerCount,
+            @Value("${fieldforcepro.datagen.locations:2000000}") long locationCount,
+            @Value("${fieldforcepro.datagen.invoices:300000}") long invoiceCount,
+            @Value("${fieldforcepro.datagen.sales-orders:100000}") long salesOrderCount,
+            @Value("${fieldforcepro.datagen.leads:50000}") long leadCount,
+            @Value("${fieldforcepro.datagen.activities:200000}") long activityCount,
+            @Value("${fieldforcepro.datagen.exit-when-done:false}") boolean exitWhenDone
+    ) {
+        this.dataSource = dataSource;
+        this.salesRollupService = salesRollupService;
+        this.invoiceItemIdAlignment = invoiceItemIdAlignment;
+        this.passwordEncoder = passwordEncoder;
+        this.applicationContext = applicationContext;
+        this.seed = seed;
+        this.endDate = endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+        this.years = years;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        this.agentCount = agentCount;
+        this.productCount = productCount;
+        this.customerCount = customerCount;
+        this.locationCount = locationCount;
+        this.invoiceCount = invoiceCount;
+        this.salesOrderCount = salesOrderCount;
+        this.leadCount = leadCount;
+        this.activityCount = activityCount;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (alreadyGenerated()) {
+            log.info("Synthetic dataset already present, skipping generation");
+        } else {
+            generate();
+        }
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    public void generate() throws Exception {
+        long started = System.nanoTime();
+        log.info("Generating synthetic dataset (seed={}, endDate={}, years={}, threads={})", seed, endDate, years, threads);
+
+        // Reference data first, single threaded: every other table points at it
+        Agent[] agents = insertAgents();
+        Product[] products = insertProducts();
+        Customer[] customers = insertCustomers();
+
+        // invoice_items ids come from a table generator, so they are assigned here from the invoice
+        // index and the generator is moved past them once all chunks are written
+        itemIdBase = maxId("invoice_items");
+
+        WeightedIndex agentPicker = new WeightedIndex(agents.length, 0.6);
+        WeightedIndex productPicker = new WeightedIndex(products.length, 1.0);
+        WeightedIndex customerPicker = new WeightedIndex(customers.length, 0.8);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "datagen-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            submitChunks(executor, tasks, "locations", locationCount,
+                    (random, from, to) -> insertLocations(random, from, to, agents, agentPicker));
+            for (int first = 0; first < agents.length; first += 10) {
+                int chunkFirst = first;
+                int chunk = first / 10;
+                tasks.add(executor.submit(() -> {
+                    insertAttendance(random("attendance", chunk), agents, chunkFirst, Math.min(agents.length, chunkFirst + 10));
+                    return null;
+                }));
+            }
+            submitChunks(executor, tasks, "invoices", invoiceCount,
+                    (random, from, to) -> insertInvoices(random, from, to, agents, agentPicker, products, productPicker, customers, customerPicker));
+            submitChunks(executor, tasks, "sales_orders", salesOrderCount,
+                    (random, from, to) -> insertSalesOrders(random, from, to, customers, customerPicker));
+            submitChunks(executor, tasks, "leads", leadCount,
+                    (random, from, to) -> insertLeads(random, from, to, agents, agentPicker, products, productPicker));
+            submitChunks(executor, tasks, "activities", activityCount,
+                    (random, from, to) -> insertActivities(random, from, to, agents, agentPicker, customers, customerPicker));
+
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Generated invoices bypass InvoiceService, so the rollups are recomputed once at the end
+        invoiceItemIdAlignment.align();
+        salesRollupService.rebuild();
+
+        inserted.forEach((table, count) -> log.info("  {}: {} rows", table, count.get()));
+        log.info("Synthetic dataset generated in {}s", Duration.ofNanos(System.nanoTime() - started).toSeconds());
+    }
+
+    // ----- reference data -----
+
+    private Agent[] insertAgents() throws SQLException {
+        SplittableRandom random = random("users", 0);
+        String passwordHash = passwordEncoder.encode("password");
+        Instant createdAt = windowStart();
+        Agent[] agents = new Agent[agentCount];
+        long baseId = maxId("users");
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "users",
+                     "INSERT INTO users (id, email, password_hash, name, mobile, role, is_active, created_at, updated_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < agentCount; i++) {
+                long id = baseId + i + 1;
+                String name = pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES);
+                String email = "agent" + (i + 1) + "." + seed + EMAIL_DOMAIN;
+                int city = random.nextInt(CITIES.length);
+                agents[i] = new Agent(id, name, email, city,
+                        (double) CITIES[city][1] + random.nextDouble(-0.08, 0.08),
+                        (double) CITIES[city][2] + random.nextDouble(-0.08, 0.08));
+                PreparedStatement ps = batch.statement();
+                ps.setLong(1, id);
+                ps.setString(2, email);
+                ps.setString(3, passwordHash);
+                ps.setString(4, name);
+                ps.setString(5, mobile(random));
+                ps.setString(6, "AGENT");
+                ps.setBoolean(7, random.nextDouble() < 0.93);
+                ps.setTimestamp(8, Timestamp.from(createdAt));
+                ps.setTimestamp(9, Timestamp.from(createdAt));
+                batch.add();
+            }
+            batch.commit();
+        }
+        return agents;
+    }
+
+    private Product[] insertProducts() throws SQLException {
+        SplittableRandom random = random("products", 0);
+        Product[] products = new Product[productCount];
+        long baseId = maxId("products");
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "products",
+                     "INSERT INTO products (id, name, sku, category, price, description, active, created_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < productCount; i++) {
+                long id = baseId + i + 1;
+                String kind = pick(random, PRODUCT_KINDS);
+                String name = kind + " " + (char) ('A' + random.nextInt(26)) + (100 + random.nextInt(900));
+                String sku = "GEN-" + seed + "-" + String.format("%05d", i + 1);
+                BigDecimal price = money(logNormal(random, 8.0, 1.1), 150, 250_000);
+                products[i] = new Product(id, name, sku, price);
+                PreparedStatement ps = batch.statement();
+                ps.setLong(1, id);
+                ps.setString(2, name);
+                ps.setString(3, sku);
+                ps.setString(4, pick(random, PRODUCT_CATEGORIES));
+                ps.setBigDecimal(5, price);
+                ps.setString(6, kind + " for " + pick(random, SEGMENTS).toLowerCase() + " installations");
+                ps.setBoolean(7, random.nextDouble() < 0.95);
+                ps.setTimestamp(8, Timestamp.from(windowStart()));
+                batch.add();
+            }
+            batch.commit();
+        }
+        return products;
+    }
+
+    private Customer[] insertCustomers() throws SQLException {
+        SplittableRandom random = random("customers", 0);
+        Customer[] customers = new Customer[customerCount];
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "customers",
+                     "INSERT INTO customers (id, name, segment, city, contact_name, phone, created_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < customerCount; i++) {
+                String id = uuid(random);
+                String name = businessName(random);
+                String city = (String) CITIES[random.nextInt(CITIES.length)][0];
+                String phone = mobile(random);
+                customers[i] = new Customer(id, name, city, phone);
+                PreparedStatement ps = batch.statement();
+                ps.setString(1, id);
+                ps.setString(2, name);
+                ps.setString(3, pick(random, SEGMENTS));
+                ps.setString(4, city);
+                ps.setString(5, pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES));
+                ps.setString(6, phone);
+                ps.setTimestamp(7, Timestamp.from(randomInstant(random, 1.0)));
+                batch.add();
+            }
+            batch.commit();
+        }
+        return customers;
+    }
+
+    // ----- high volume tables -----
+
+    private void insertLocations(SplittableRandom random, long from, long to, Agent[] agents, WeightedIndex agentPicker)
+            throws SQLException {
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "locations",
+                     "INSERT INTO locations (agent_id, latitude, longitude, accuracy, status, timestamp) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long i = from; i < to; i++) {
+                Agent agent = agents[agentPicker.next(random)];
+                PreparedStatement ps = batch.statement();
+                ps.setLong(1, agent.id());
+                ps.setDouble(2, agent.latitude() + random.nextGaussian() * 0.04);
+                ps.setDouble(3, agent.longitude() + random.nextGaussian() * 0.04);
+                ps.setFloat(4, (float) (3 + Math.abs(random.nextGaussian()) * 15));
+                ps.setString(5, random.nextDouble() < 0.9 ? "ONLINE" : "IDLE");
+                ps.setTimestamp(6, Timestamp.from(randomInstant(random, 1.0)));
+                batch.add();
+            }
+            batch.commit();
+        }
+    }
+
+    // One record per agent per working day: mostly present, with absences and leave
+    private void insertAttendance(SplittableRandom random, Agent[] agents, int firstAgent, int lastAgent) throws SQLException {
+        LocalDate start = endDate.minusYears(years);
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "attendance_records",
+                     "INSERT INTO attendance_records (id, agent_id, agent_name, check_in_time, check_out_time, status, " +
+                             "work_type, latitude, longitude, address) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int a = firstAgent; a < lastAgent; a++) {
+                Agent agent = agents[a];
+                for (LocalDate day = start; !day.isAfter(endDate); day = day.plusDays(1)) {
+                    if (day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                        continue;
+                    }
+                    double roll = random.nextDouble();
+                    String status = roll < 0.90 ? "Present" : roll < 0.95 ? "Leave" : "Absent";
+                    ZonedDateTime checkIn = day.atTime(9, 0).atZone(zoneId)
+                            .plusMinutes(Math.round(random.nextGaussian() * 25));
+                    ZonedDateTime checkOut = checkIn.plusMinutes(420 + random.nextInt(180));
+                    boolean stillOpen = day.equals(endDate) && random.nextDouble() < 0.7;
+                    PreparedStatement ps = batch.statement();
+                    ps.setString(1, uuid(random));
+                    ps.setString(2, String.valueOf(agent.id()));
+                    ps.setString(3, agent.name());
+                    ps.setTimestamp(4, Timestamp.from(checkIn.toInstant()));
+                    if ("Present".equals(status) && !stillOpen) {
+                        ps.setTimestamp(5, Timestamp.from(checkOut.toInstant()));
+                    } else {
+                        ps.setNull(5, Types.TIMESTAMP);
+                    }
+                    ps.setString(6, status);
+                    ps.setString(7, random.nextDouble() < 0.8 ? "Field" : "Office");
+                    ps.setDouble(8, agent.latitude() + random.nextGaussian() * 0.01);
+                    ps.setDouble(9, agent.longitude() + random.nextGaussian() * 0.01);
+                    ps.setString(10, CITIES[agent.city()][0] + ", Maharashtra");
+                    batch.add();
+                }
+            }
+            batch.commit();
+        }
+    }
+
+    private void insertInvoices(SplittableRandom random, long from, long to,
+                                Agent[] agents, WeightedIndex agentPicker,
+                                Product[] products, WeightedIndex productPicker,
+                                Customer[] customers, WeightedIndex customerPicker) throws SQLException {
+        try (Connection connection = connection();
+             Batch invoiceBatch = new Batch(connection, "invoices",
+                     "INSERT INTO invoices (id, invoice_no, agent_id, created_by, customer_id, customer_snapshot, customer_name, " +
+                             "company_name, company_gst, agent_name, agent_email, customer_mobile, subtotal, total_discount, " +
+                             "tax_amount, shipping, total, currency, status, invoice_date, due_date, created_at, updated_at, version) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)");
+             Batch itemBatch = new Batch(connection, "invoice_items",
+                     "INSERT INTO invoice_items (id, invoice_id, product_id, name, sku, unit_price, quantity, discount, tax, line_total) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", false)) {
+            for (long i = from; i < to; i++) {
+                String invoiceId = uuid(random);
+                Agent agent = agents[agentPicker.next(random)];
+                Customer customer = customers[customerPicker.next(random)];
+                Instant createdAt = randomInstant(random, 0.7);
+                int itemCount = 1 + (int) Math.min(MAX_ITEMS_PER_INVOICE - 1, Math.floor(-Math.log(1 - random.nextDouble()) * 1.5));
+
+                BigDecimal subtotal = BigDecimal.ZERO;
+                BigDecimal discountTotal = BigDecimal.ZERO;
+                BigDecimal taxTotal = BigDecimal.ZERO;
+                for (int n = 0; n < itemCount; n++) {
+                    Product product = products[productPicker.next(random)];
+                    int quantity = 1 + (int) Math.floor(-Math.log(1 - random.nextDouble()) * 2);
+                    BigDecimal gross = product.price().multiply(BigDecimal.valueOf(quantity));
+                    BigDecimal discount = random.nextDouble() < 0.3
+                            ? gross.multiply(BigDecimal.valueOf(random.nextInt(3, 16))).movePointLeft(2).setScale(2, RoundingMode.HALF_UP)
+                            : BigDecimal.ZERO.setScale(2);
+                    BigDecimal tax = gross.subtract(discount).multiply(GST_RATE).setScale(2, RoundingMode.HALF_UP);
+                    subtotal = subtotal.add(gross);
+                    discountTotal = discountTotal.add(discount);
+                    taxTotal = taxTotal.add(tax);
+
+                    PreparedStatement item = itemBatch.statement();
+                    item.setLong(1, itemIdBase + i * MAX_ITEMS_PER_INVOICE + n + 1);
+                    item.setString(2, invoiceId);
+                    item.setLong(3, product.id());
+                    item.setString(4, product.name());
+                    item.setString(5, product.sku());
+                    item.setBigDecimal(6, product.price());
+                    item.setInt(7, quantity);
+                    item.setBigDecimal(8, discount);
+                    item.setBigDecimal(9, tax);
+                    item.setBigDecimal(10, gross.subtract(discount).add(tax));
+                    itemBatch.add();
+                }
+                BigDecimal shipping = random.nextDouble() < 0.25 ? BigDecimal.valueOf(100L * random.nextInt(1, 6)).setScale(2) : BigDecimal.ZERO.setScale(2);
+                BigDecimal total = subtotal.subtract(discountTotal).add(taxTotal).add(shipping);
+
+                PreparedStatement ps = invoiceBatch.statement();
+                ps.setString(1, invoiceId);
+                ps.setString(2, "GEN-" + createdAt.atZone(zoneId).getYear() + "-" + String.format("%08d", i + 1));
+                ps.setString(3, String.valueOf(agent.id()));
+                ps.setString(4, String.valueOf(agent.id()));
+                ps.setString(5, customer.id());
+                ps.setString(6, "{\"name\":\"" + customer.name() + "\",\"city\":\"" + customer.city()
+                        + "\",\"phone\":\"" + customer.phone() + "\"}");
+                ps.setString(7, customer.name());
+                ps.setString(8, "Candor Water Tech");
+                ps.setString(9, "27AAACC1234F1Z5");
+                ps.setString(10, agent.name());
+                ps.setString(11, agent.email());
+                ps.setString(12, customer.phone());
+                ps.setBigDecimal(13, subtotal);
+                ps.setBigDecimal(14, discountTotal);
+                ps.setBigDecimal(15, taxTotal);
+                ps.setBigDecimal(16, shipping);
+                ps.setBigDecimal(17, total);
+                ps.setString(18, "INR");
+                ps.setString(19, invoiceStatus(random, createdAt));
+                ps.setTimestamp(20, Timestamp.from(createdAt));
+                ps.setTimestamp(21, Timestamp.from(createdAt.plus(Duration.ofDays(random.nextDouble() < 0.5 ? 15 : 30))));
+                ps.setTimestamp(22, Timestamp.from(createdAt));
+                ps.setTimestamp(23, Timestamp.from(createdAt));
+                // Items are only flushed right after their invoices
+                if (invoiceBatch.add()) {
+                    itemBatch.flush();
+                }
+            }
+            invoiceBatch.flush();
+            itemBatch.flush();
+            connection.commit();
+        }
+    }
+
+    private void insertSalesOrders(SplittableRandom random, long from, long to,
+                                   Customer[] customers, WeightedIndex customerPicker) throws SQLException {
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "sales_orders",
+                     "INSERT INTO sales_orders (id, order_number, customer_name, status, amount, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long i = from; i < to; i++) {
+                Instant createdAt = randomInstant(random, 0.8);
+                boolean recent = createdAt.isAfter(windowEnd().minus(Duration.ofDays(10)));
+                PreparedStatement ps = batch.statement();
+                ps.setString(1, uuid(random));
+                ps.setString(2, "SO-GEN-" + String.format("%08d", i + 1));
+                ps.setString(3, customers[customerPicker.next(random)].name());
+                ps.setString(4, recent ? ORDER_STATUSES[random.nextInt(3)]
+                        : random.nextDouble() < 0.9 ? "DELIVERED" : "CANCELLED");
+                ps.setBigDecimal(5, money(logNormal(random, 9.5, 1.0), 500, 2_000_000));
+                ps.setTimestamp(6, Timestamp.from(createdAt));
+                batch.add();
+            }
+            batch.commit();
+        }
+    }
+
+    private void insertLeads(SplittableRandom random, long from, long to,
+                             Agent[] agents, WeightedIndex agentPicker,
+                             Product[] products, WeightedIndex productPicker) throws SQLException {
+        try (Connection connection = connection();
+             Batch leadBatch = new Batch(connection, "leads",
+                     "INSERT INTO leads (id, company_name, phone, email, address, product, quantity, amount, latitude, longitude, " +
+                             "status, priority, assigned_agent_id, source, notes, created_at, updated_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             Batch commentBatch = new Batch(connection, "lead_comments",
+                     "INSERT INTO lead_comments (id, lead_id, message, source, agent_name, created_at) VALUES (?, ?, ?, ?, ?, ?)", false)) {
+            for (long i = from; i < to; i++) {
+                String leadId = uuid(random);
+                Agent agent = agents[agentPicker.next(random)];
+                Product product = products[productPicker.next(random)];
+                String company = businessName(random);
+                Instant createdAt = randomInstant(random, 0.8);
+                int quantity = 1 + random.nextInt(10);
+                boolean old = createdAt.isBefore(windowEnd().minus(Duration.ofDays(60)));
+                String status = old
+                        ? (random.nextDouble() < 0.35 ? "CLOSED_WON" : "CLOSED_LOST")
+                        : pick(random, new String[]{"NEW", "CONTACTED", "QUALIFIED", "PROPOSAL"});
+
+                PreparedStatement ps = leadBatch.statement();
+                ps.setString(1, leadId);
+                ps.setString(2, company);
+                ps.setString(3, mobile(random));
+                ps.setString(4, "info" + (i + 1) + "@example.com");
+                ps.setString(5, CITIES[agent.city()][0] + ", Maharashtra");
+                ps.setString(6, product.name());
+                ps.setInt(7, quantity);
+                ps.setDouble(8, product.price().doubleValue() * quantity);
+                ps.setDouble(9, agent.latitude() + random.nextGaussian() * 0.05);
+                ps.setDouble(10, agent.longitude() + random.nextGaussian() * 0.05);
+                ps.setString(11, status);
+                ps.setString(12, pick(random, new String[]{"LOW", "MEDIUM", "MEDIUM", "HIGH"}));
+                ps.setString(13, String.valueOf(agent.id()));
+                ps.setString(14, pick(random, LEAD_SOURCES));
+                ps.setString(15, null);
+                ps.setTimestamp(16, Timestamp.from(createdAt));
+                ps.setTimestamp(17, Timestamp.from(createdAt));
+                if (leadBatch.add()) {
+                    commentBatch.flush();
+                }
+
+                int comments = (int) Math.min(12, Math.floor(-Math.log(1 - random.nextDouble()) * 3));
+                Instant at = createdAt;
+                for (int c = 0; c < comments; c++) {
+                    at = at.plus(Duration.ofHours(2 + random.nextInt(96)));
+                    PreparedStatement comment = commentBatch.statement();
+                    comment.setString(1, uuid(random));
+                    comment.setString(2, leadId);
+                    comment.setString(3, pick(random, COMMENT_TEMPLATES));
+                    comment.setString(4, random.nextDouble() < 0.85 ? "AGENT" : "ADMIN");
+                    comment.setString(5, agent.name());
+                    comment.setTimestamp(6, Timestamp.from(at));
+                    commentBatch.add();
+                }
+            }
+            leadBatch.flush();
+            commentBatch.flush();
+            connection.commit();
+        }
+    }
+
+    private void insertActivities(SplittableRandom random, long from, long to,
+                                  Agent[] agents, WeightedIndex agentPicker,
+                                  Customer[] customers, WeightedIndex customerPicker) throws SQLException {
+        try (Connection connection = connection();
+             Batch batch = new Batch(connection, "activities",
+                     "INSERT INTO activities (id, agent_id, agent_name, customer_name, activity, status, occurred_at) " +
+                             "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (long i = from; i < to; i++) {
+                Agent agent = agents[agentPicker.next(random)];
+                Instant occurredAt = randomInstant(random, 0.9);
+                PreparedStatement ps = batch.statement();
+                ps.setString(1, uuid(random));
+                ps.setLong(2, agent.id());
+                ps.setString(3, agent.name());
+                ps.setString(4, customers[customerPicker.next(random)].name());
+                ps.setString(5, pick(random, ACTIVITY_TYPES));
+                ps.setString(6, occurredAt.isAfter(windowEnd().minus(Duration.ofDays(2)))
+                        ? pick(random, new String[]{"IN_PROGRESS", "SCHEDULED"}) : "COMPLETED");
+                ps.setTimestamp(7, Timestamp.from(occurredAt));
+                batch.add();
+            }
+            batch.commit();
+        }
+    }
+
+    // ----- helpers -----
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(SplittableRandom random, long from, long to) throws Exception;
+    }
+
+    private void submitChunks(ExecutorService executor, List<Future<?>> tasks, String table, long rows, ChunkWriter writer) {
+        for (long from = 0, chunk = 0; from < rows; from += chunkSize, chunk++) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + chunkSize);
+            SplittableRandom random = random(table, chunk);
+            tasks.add(executor.submit(() -> {
+                writer.write(random, chunkFrom, chunkTo);
+                return null;
+            }));
+        }
+    }
+
+    // Independent, reproducible stream per (table, chunk)
+    private SplittableRandom random(String table, long chunk) {
+        long mixed = seed * 0x9E3779B97F4A7C15L + table.hashCode() * 0xBF58476D1CE4E5B9L + chunk * 0x94D049BB133111EBL;
+        return new SplittableRandom(mixed);
+    }
+
+    private boolean alreadyGenerated() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM users WHERE email LIKE ?")) {
+            ps.setString(1, "%." + seed + EMAIL_DOMAIN);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getLong(1) > 0;
+            }
+        }
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM " + table);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private Instant windowStart() {
+        return endDate.minusYears(years).atTime(9, 0).atZone(zoneId).toInstant();
+    }
+
+    private Instant windowEnd() {
+        return endDate.atTime(20, 0).atZone(zoneId).toInstant();
+    }
+
+    // A time during working hours inside the window; bias < 1 skews towards recent dates (business growth)
+    private Instant randomInstant(SplittableRandom random, double bias) {
+        long days = Duration.between(windowStart(), windowEnd()).toDays();
+        long dayOffset = Math.min(days, (long) (days * Math.pow(random.nextDouble(), bias)));
+        LocalDate day = endDate.minusYears(years).plusDays(dayOffset);
+        if (day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            day = day.minusDays(1);
+        }
+        return day.atTime(9, 0).atZone(zoneId).toInstant().plusSeconds(random.nextLong(10 * 3600));
+    }
+
+    private String invoiceStatus(SplittableRandom random, Instant createdAt) {
+        long ageDays = Duration.between(createdAt, windowEnd()).toDays();
+        double roll = random.nextDouble();
+        if (ageDays < 7) {
+            return roll < 0.35 ? "DRAFT" : roll < 0.9 ? "SENT" : "PAID";
+        }
+        if (ageDays < 45) {
+            return roll < 0.05 ? "DRAFT" : roll < 0.45 ? "SENT" : roll < 0.95 ? "PAID" : "CANCELLED";
+        }
+        return roll < 0.08 ? "SENT" : roll < 0.95 ? "PAID" : "CANCELLED";
+    }
+
+    private static double logNormal(SplittableRandom random, double mu, double sigma) {
+        return Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    private static BigDecimal money(double value, double min, double max) {
+        return BigDecimal.valueOf(Math.max(min, Math.min(max, value))).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String businessName(SplittableRandom random) {
+        return pick(random, BUSINESS_PREFIXES) + " " + pick(random, BUSINESS_PREFIXES) + " " + pick(random, BUSINESS_SUFFIXES);
+    }
+
+    private static String mobile(SplittableRandom random) {
+        return (7 + random.nextInt(3)) + String.format("%09d", random.nextInt(1_000_000_000));
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String uuid(SplittableRandom random) {
+        long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    // Zipf-like sampler: index k is chosen with weight 1 / (k + 1)^exponent
+    private static final class WeightedIndex {
+        private final double[] cumulative;
+
+        WeightedIndex(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int k = 0; k < size; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+        }
+
+        int next(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    // Batches inserts for one statement and counts the rows per table. Child batches are created
+    // without auto flush and flushed by the caller after their parent batch.
+    private final class Batch implements AutoCloseable {
+        private final Connection connection;
+        private final String table;
+        private final PreparedStatement statement;
+        private final boolean autoFlush;
+        private int pending;
+
+        Batch(Connection connection, String table, String sql) throws SQLException {
+            this(connection, table, sql, true);
+        }
+
+        Batch(Connection connection, String table, String sql, boolean autoFlush) throws SQLException {
+            this.connection = connection;
+            this.table = table;
+            this.statement = connection.prepareStatement(sql);
+            this.autoFlush = autoFlush;
+        }
+
+        PreparedStatement statement() {
+            return statement;
+        }
+
+        // Returns true when this call flushed the batch
+        boolean add() throws SQLException {
+            statement.addBatch();
+            if (++pending >= batchSize && autoFlush) {
+                flush();
+                return true;
+            }
+            return false;
+        }
+
+        void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                inserted.computeIfAbsent(table, t -> new AtomicLong()).addAndGet(pending);
+                pending = 0;
+            }
+        }
+
+        void commit() throws SQLException {
+            flush();
+            connection.commit();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
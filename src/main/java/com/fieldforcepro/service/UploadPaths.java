@@ -0,0 +1,47 @@
+package com.fieldforcepro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+// Maps the /uploads/... URLs stored on entities to files in the local uploads directory,
+// which StaticResourceConfig serves under the same prefix
+@Component
+public class UploadPaths {
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private final Path root;
+
+    public UploadPaths(@Value("${fieldforcepro.uploads.dir:uploads}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create uploads directory " + this.root, e);
+        }
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    // Empty for other URLs, for paths that escape the uploads directory and for missing files
+    public Optional<Path> resolve(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return Optional.empty();
+        }
+        Path path = root.resolve(url.substring(URL_PREFIX.length())).normalize();
+        return path.startsWith(root) && Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public String urlOf(Path file) {
+        return URL_PREFIX + root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+}
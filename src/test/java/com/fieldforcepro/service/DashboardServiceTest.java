@@ -0,0 +1,100 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.repository.ActivityRepository;
+import com.fieldforcepro.repository.LocationRepository;
+import com.fieldforcepro.service.DashboardService.DashboardSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private ReportService reportService;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private ActivityRepository activityRepository;
+    @Mock
+    private LocationRepository locationRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DashboardService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        lenient().when(activityRepository.findAllByOrderByOccurredAtDesc(any())).thenReturn(Page.empty());
+        service = new DashboardService(reportService, salesRollupService, activityRepository, locationRepository,
+                4, 16, Duration.ofMillis(300), transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void slowPartIsReportedUnavailableAndInterrupted() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(reportService.getAttendanceReport(eq(FROM), eq(TO), isNull())).thenAnswer(i -> {
+            try {
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return List.of();
+        });
+
+        long start = System.nanoTime();
+        DashboardSummary summary = service.getSummary(FROM, TO);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(summary.unavailableParts()).containsExactly("attendance");
+        assertThat(summary.attendance()).isNull();
+        assertThat(summary.sales()).isNotNull();
+        assertThat(summary.orders()).isNotNull();
+        assertThat(elapsedMillis).isLessThan(5_000);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void partsRunInReadOnlyTransactionsWithTheTimeoutRoundedUpToSeconds() {
+        service.getSummary(FROM, TO);
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).hasSize(5).allSatisfy(definition -> {
+            assertThat(definition.isReadOnly()).isTrue();
+            assertThat(definition.getTimeout()).isEqualTo(1);
+        });
+    }
+}
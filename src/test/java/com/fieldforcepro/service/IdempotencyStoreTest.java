@@ -0,0 +1,126 @@
+package com.fieldforcepro.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private final Supplier<ResponseEntity<String>> created = () ->
+            ResponseEntity.status(HttpStatus.CREATED).header("Location", "/invoices/" + runs.incrementAndGet())
+                    .body("invoice " + runs.get());
+
+    @Test
+    void retryWithTheSameFingerprintReplaysTheStoredResponse() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+
+        ResponseEntity<String> first = store.execute("invoices", "k1", "payload", created);
+        ResponseEntity<String> retry = store.execute("invoices", "k1", "payload", created);
+
+        assertThat(runs).hasValue(1);
+        assertThat(first.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getBody()).isEqualTo("invoice 1");
+        assertThat(retry.getHeaders().getFirst("Location")).isEqualTo("/invoices/1");
+        assertThat(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void sameKeyWithADifferentFingerprintIsRejected() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+        store.execute("invoices", "k1", "payload", created);
+
+        ResponseEntity<String> reused = store.execute("invoices", "k1", "other payload", created);
+
+        assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void retryWhileTheFirstRequestIsRunningGetsConflict() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+        AtomicReference<ResponseEntity<String>> overlapping = new AtomicReference<>();
+
+        store.execute("invoices", "k1", "payload", () -> {
+            overlapping.set(store.execute("invoices", "k1", "payload", created));
+            return created.get();
+        });
+
+        assertThat(overlapping.get().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void failedAttemptsAreNotStored() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+        store.execute("invoices", "k1", "payload", () -> ResponseEntity.badRequest().build());
+        assertThatThrownBy(() -> store.execute("invoices", "k1", "payload", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<String> retry = store.execute("invoices", "k1", "payload", created);
+
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedAndOptional() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+
+        store.execute("invoices", "k1", "payload", created);
+        store.execute("orders", "k1", "payload", created);
+        store.execute("invoices", null, "payload", created);
+        store.execute("invoices", " ", "payload", created);
+
+        assertThat(runs).hasValue(4);
+    }
+
+    @Test
+    void overlongKeyIsRejectedWithoutRunning() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofHours(1));
+
+        ResponseEntity<String> response = store.execute("invoices", "k".repeat(256), "payload", created);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void expiredEntriesRunAgain() throws InterruptedException {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofMillis(20));
+        store.execute("invoices", "k1", "payload", created);
+
+        Thread.sleep(50);
+        ResponseEntity<String> later = store.execute("invoices", "k1", "other payload", created);
+
+        assertThat(later.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(later.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void oldestEntriesAreEvictedBeyondTheLimit() {
+        IdempotencyStore store = new IdempotencyStore(2, Duration.ofHours(1));
+        store.execute("invoices", "k1", "payload", created);
+        store.execute("invoices", "k2", "payload", created);
+        store.execute("invoices", "k3", "payload", created);
+
+        store.execute("invoices", "k3", "payload", created);
+        store.execute("invoices", "k2", "payload", created);
+        assertThat(runs).hasValue(3);
+
+        store.execute("invoices", "k1", "payload", created);
+        assertThat(runs).hasValue(4);
+    }
+}
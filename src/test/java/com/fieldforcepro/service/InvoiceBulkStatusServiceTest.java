@@ -0,0 +1,224 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceAuditOutbox;
+import com.fieldforcepro.model.ReportType;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.service.InvoiceBulkStatusService.BulkStatusRequest;
+import com.fieldforcepro.service.InvoiceBulkStatusService.Outcome;
+import com.fieldforcepro.service.InvoiceBulkStatusService.StatusChange;
+import com.fieldforcepro.service.InvoiceBulkStatusService.StatusChangeResult;
+import com.fieldforcepro.service.SalesRollupService.Contribution;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceBulkStatusServiceTest {
+
+    private static final Instant CREATED = Instant.parse("2026-03-14T10:00:00Z");
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private InvoiceItemRepository itemRepository;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private ReceivablesAgingService receivablesAging;
+    @Mock
+    private ReportCacheInvalidator reportCacheInvalidator;
+    @Mock
+    private InvoiceAuditOutboxRepository auditOutboxRepository;
+
+    private InvoiceBulkStatusService service;
+    private final List<Invoice> stored = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(invoiceRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(i -> {
+            Collection<String> ids = i.getArgument(0);
+            return stored.stream().filter(invoice -> ids.contains(invoice.getId())).toList();
+        });
+        lenient().when(salesRollupService.contributionOf(any(), any())).thenAnswer(i -> {
+            Invoice invoice = i.getArgument(0);
+            return new Contribution(LocalDate.of(2026, 3, 14), invoice.getAgentId(), invoice.getStatus(),
+                    invoice.getTotal(), BigDecimal.ZERO, invoice.getTotal(), List.of());
+        });
+        service = new InvoiceBulkStatusService(invoiceRepository, itemRepository, salesRollupService,
+                receivablesAging, reportCacheInvalidator, auditOutboxRepository, 5);
+    }
+
+    @Test
+    void appliesAllowedTransitionsAndReportsTheRest() {
+        invoices("draft:DRAFT", "new:NEW", "sent:SENT", "paid:PAID", "cancelled:CANCELLED");
+
+        List<StatusChangeResult> results = service.apply(request(
+                change("draft", "SENT"),
+                change("new", "cancelled"),
+                change("sent", " paid "),
+                change("paid", "SENT"),
+                change("cancelled", "PAID")));
+
+        assertThat(results).extracting(StatusChangeResult::id, StatusChangeResult::outcome,
+                        StatusChangeResult::previousStatus, StatusChangeResult::status)
+                .containsExactly(
+                        tuple("draft", Outcome.UPDATED, "DRAFT", "SENT"),
+                        tuple("new", Outcome.UPDATED, "NEW", "CANCELLED"),
+                        tuple("sent", Outcome.UPDATED, "SENT", "PAID"),
+                        tuple("paid", Outcome.INVALID_TRANSITION, "PAID", "SENT"),
+                        tuple("cancelled", Outcome.INVALID_TRANSITION, "CANCELLED", "PAID"));
+        verify(invoiceRepository).updateStatus(eq(List.of("draft")), eq("SENT"), any());
+        verify(invoiceRepository).updateStatus(eq(List.of("new")), eq("CANCELLED"), any());
+        verify(invoiceRepository).updateStatus(eq(List.of("sent")), eq("PAID"), any());
+        verify(invoiceRepository, times(3)).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void backwardTransitionsAreRejected() {
+        invoices("sent:SENT", "sent2:SENT");
+
+        List<StatusChangeResult> results = service.apply(request(change("sent", "DRAFT"), change("sent2", "NEW")));
+
+        assertThat(results).extracting(StatusChangeResult::outcome)
+                .containsExactly(Outcome.INVALID_TRANSITION, Outcome.INVALID_TRANSITION);
+        verify(invoiceRepository, times(0)).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void missingOrBlankTargetIsAnInvalidTransition() {
+        invoices("a:SENT", "b:SENT", "c:DRAFT");
+
+        List<StatusChangeResult> results = service.apply(request(
+                change("a", null), change("b", "  "), change("c", "SENT")));
+
+        assertThat(results).extracting(StatusChangeResult::id, StatusChangeResult::outcome,
+                        StatusChangeResult::previousStatus, StatusChangeResult::status)
+                .containsExactly(
+                        tuple("a", Outcome.INVALID_TRANSITION, "SENT", null),
+                        tuple("b", Outcome.INVALID_TRANSITION, "SENT", null),
+                        tuple("c", Outcome.UPDATED, "DRAFT", "SENT"));
+    }
+
+    @Test
+    void unchangedMissingAndDuplicateIdsAreReported() {
+        invoices("sent:SENT", "draft:DRAFT");
+
+        List<StatusChangeResult> results = service.apply(request(
+                change("sent", "sent"),
+                change("gone", "PAID"),
+                change("draft", "SENT"),
+                change("draft", "CANCELLED"),
+                null));
+
+        assertThat(results).extracting(StatusChangeResult::id, StatusChangeResult::outcome)
+                .containsExactly(
+                        tuple("sent", Outcome.UNCHANGED),
+                        tuple("gone", Outcome.NOT_FOUND),
+                        tuple("draft", Outcome.UPDATED),
+                        tuple("draft", Outcome.DUPLICATE),
+                        tuple(null, Outcome.NOT_FOUND));
+        verify(invoiceRepository).updateStatus(eq(List.of("draft")), eq("SENT"), any());
+    }
+
+    @Test
+    void nothingIsWrittenWhenNoChangeApplies() {
+        invoices("paid:PAID");
+
+        service.apply(request(change("paid", "PAID"), change("paid2", "PAID")));
+
+        verify(invoiceRepository, times(0)).updateStatus(any(), any(), any());
+        verifyNoInteractions(itemRepository, salesRollupService, receivablesAging, reportCacheInvalidator,
+                auditOutboxRepository);
+    }
+
+    @Test
+    void updatesGoThroughTheAuditOutboxRollupsAgingAndReportCache() {
+        invoices("a:SENT", "b:SENT", "c:DRAFT");
+
+        service.apply(request(change("a", "PAID"), change("b", "PAID"), change("c", "SENT")));
+
+        verify(invoiceRepository).updateStatus(eq(List.of("a", "b")), eq("PAID"), any());
+        verify(invoiceRepository).updateStatus(eq(List.of("c")), eq("SENT"), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InvoiceAuditOutbox>> events = ArgumentCaptor.forClass(List.class);
+        verify(auditOutboxRepository).saveAll(events.capture());
+        assertThat(events.getValue()).extracting(InvoiceAuditOutbox::getInvoiceId, InvoiceAuditOutbox::getAction,
+                        InvoiceAuditOutbox::getActorId, InvoiceAuditOutbox::getDetails)
+                .containsExactly(
+                        tuple("a", "PAID", "reconciler", "Status changed to PAID (bulk)"),
+                        tuple("b", "PAID", "reconciler", "Status changed to PAID (bulk)"),
+                        tuple("c", "SENT", "reconciler", "Status changed to SENT (bulk)"));
+        assertThat(events.getValue()).allSatisfy(event -> assertThat(event.getCreatedAt()).isNotNull());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Contribution>> after = ArgumentCaptor.forClass(List.class);
+        verify(salesRollupService).replaceAll(any(), after.capture());
+        assertThat(after.getValue()).extracting(Contribution::status).containsExactly("PAID", "PAID", "SENT");
+
+        ArgumentCaptor<Invoice> aged = ArgumentCaptor.forClass(Invoice.class);
+        verify(receivablesAging, times(3)).onSaved(aged.capture());
+        assertThat(aged.getAllValues()).extracting(Invoice::getStatus).containsExactly("PAID", "PAID", "SENT");
+        verify(reportCacheInvalidator).afterCommit(ReportType.SALES, CREATED);
+    }
+
+    @Test
+    void rejectsRequestsWithoutActorOrChangesOrWithTooManyChanges() {
+        assertThatThrownBy(() -> service.apply(new BulkStatusRequest(" ", List.of(change("a", "PAID")))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.apply(new BulkStatusRequest("reconciler", List.of())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.apply(request(change("a", "PAID"), change("b", "PAID"),
+                change("c", "PAID"), change("d", "PAID"), change("e", "PAID"), change("f", "PAID"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most 5");
+        verifyNoInteractions(invoiceRepository);
+    }
+
+    // "id:STATUS" pairs
+    private void invoices(String... specs) {
+        for (String spec : specs) {
+            String[] parts = spec.split(":");
+            stored.add(Invoice.builder()
+                    .id(parts[0])
+                    .status(parts[1])
+                    .agentId("agent-1")
+                    .total(new BigDecimal("100.00"))
+                    .createdAt(CREATED)
+                    .build());
+        }
+    }
+
+    private static BulkStatusRequest request(StatusChange... changes) {
+        return new BulkStatusRequest("reconciler", Arrays.asList(changes));
+    }
+
+    private static StatusChange change(String id, String status) {
+        return new StatusChange(id, status);
+    }
+}
@@ -0,0 +1,176 @@
+package com.fieldforcepro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fieldforcepro.controller.InvoiceController;
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceAudit;
+import com.fieldforcepro.model.InvoiceAuditOutbox;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import com.fieldforcepro.repository.InvoiceAuditRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.service.InvoiceService.InvoiceDetail;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement counts of GET /invoices/{id} and of a PDF render-cache miss, measured with Hibernate
+// statistics on an in-memory database
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class InvoiceDetailQueryCountTest {
+
+    private static final Instant CREATED = Instant.parse("2026-03-14T10:00:00Z");
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private InvoiceItemRepository itemRepository;
+    @Autowired
+    private InvoiceAuditRepository auditRepository;
+    @Autowired
+    private InvoiceAuditOutboxRepository auditOutboxRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private InvoiceService invoiceService;
+    private InvoiceController controller;
+    private Statistics statistics;
+    private String invoiceId;
+
+    @BeforeEach
+    void setUp() {
+        invoiceService = new InvoiceService(invoiceRepository, itemRepository, auditRepository,
+                auditOutboxRepository, null, new ObjectMapper(), null, null, null, null, null, transactionManager);
+        controller = new InvoiceController(invoiceService, null, null, null, null, null, Duration.ofSeconds(30));
+
+        Invoice invoice = Invoice.builder()
+                .invoiceNo("INV-2026-000001")
+                .agentId("agent-1")
+                .createdBy("agent-1")
+                .subtotal(new BigDecimal("300.00"))
+                .totalDiscount(BigDecimal.ZERO)
+                .taxAmount(new BigDecimal("54.00"))
+                .shipping(BigDecimal.ZERO)
+                .total(new BigDecimal("354.00"))
+                .invoiceDate(CREATED)
+                .build();
+        for (int n = 1; n <= 3; n++) {
+            invoice.getItems().add(InvoiceItem.builder()
+                    .invoice(invoice)
+                    .name("Item " + n)
+                    .unitPrice(new BigDecimal("100.00"))
+                    .quantity(1)
+                    .discount(BigDecimal.ZERO)
+                    .tax(new BigDecimal("18.00"))
+                    .lineTotal(new BigDecimal("118.00"))
+                    .build());
+        }
+        invoiceId = entityManager.persist(invoice).getId();
+        entityManager.persist(InvoiceAudit.builder().invoiceId(invoiceId).action("CREATED").actorId("agent-1")
+                .createdAt(CREATED).build());
+        entityManager.persist(InvoiceAudit.builder().invoiceId(invoiceId).action("UPDATED").actorId("agent-1")
+                .createdAt(CREATED.plusSeconds(60)).build());
+        entityManager.persist(InvoiceAuditOutbox.builder().invoiceId(invoiceId).action("SENT").actorId("agent-1")
+                .createdAt(CREATED.plusSeconds(120)).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void plainGetLoadsInvoiceItemsAndAuditTrailInTwoStatements() {
+        ResponseEntity<InvoiceDetail> response = controller.get(invoiceId, request(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotNull();
+        assertThat(response.getBody().items()).hasSize(3);
+        assertThat(response.getBody().audit()).extracting(InvoiceAudit::getAction)
+                .containsExactly("CREATED", "UPDATED", "SENT");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void conditionalGetWithCurrentETagIsAnsweredFromOneStatement() {
+        String etag = controller.get(invoiceId, request(null)).getHeaders().getETag();
+        entityManager.clear();
+        statistics.clear();
+
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ResponseEntity<InvoiceDetail> response = controller.get(invoiceId, request(etag, servletResponse));
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void conditionalGetWithStaleETagAddsOnlyTheProbe() {
+        ResponseEntity<InvoiceDetail> response = controller.get(invoiceId, request("\"stale\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void missingInvoiceIsOneStatement() {
+        ResponseEntity<InvoiceDetail> response = controller.get("missing", request(null));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pdfRenderCacheMissLoadsInvoiceAndItemsInOneStatement() throws Exception {
+        InvoicePdfRenderer renderer = new InvoicePdfRenderer(invoiceService, null, 1, 4, 1 << 20, Duration.ofMinutes(5));
+
+        Optional<CompletableFuture<byte[]>> pdf = renderer.render(invoiceId, Instant.now());
+
+        assertThat(pdf).isPresent();
+        assertThat(pdf.get().get(30, TimeUnit.SECONDS)).startsWith("%PDF".getBytes());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        return request(ifNoneMatch, new MockHttpServletResponse());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/invoices/id");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
@@ -0,0 +1,175 @@
+package com.fieldforcepro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fieldforcepro.FieldForceProApplication;
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of InvoiceService.createInvoice for an invoice with many lines, with JDBC batching on
+ * (the application's hibernate.jdbc.batch_size) and off (batch_size 1, one INSERT round trip per
+ * item). Besides the time per invoice it prints the JDBC statements executed per invoice, where an
+ * executeBatch counts as one round trip.
+ *
+ * Needs a scratch MySQL schema; its tables are dropped and recreated:
+ * mvn -Pbenchmarks test-compile exec:exec -Dbenchmarks.include=InvoiceItemBatchingBenchmark \
+ *     -Dbenchmark.datasource.url="jdbc:mysql://127.0.0.1:3306/fieldforcepro_benchmark?createDatabaseIfNotExist=true&rewriteBatchedStatements=true"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InvoiceItemBatchingBenchmark {
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    @Param({"40"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private InvoiceService invoiceService;
+    private InvoicePayload payload;
+    private final AtomicLong statements = new AtomicLong();
+    private long invoices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("benchmark.datasource.url", "");
+        if (url.isBlank()) {
+            throw new IllegalStateException("Set -Dbenchmark.datasource.url to a scratch MySQL schema");
+        }
+        // Command line arguments, so they win over application.properties
+        context = new SpringApplicationBuilder(FieldForceProApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new StatementCounter(statements)))
+                .run(
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "root"),
+                        "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", "root"),
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.session.store-type=none",
+                        "--logging.level.root=WARN");
+        invoiceService = context.getBean(InvoiceService.class);
+        payload = payload(context.getBean(ObjectMapper.class), lines);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        statements.set(0);
+        invoices = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        if (invoices > 0) {
+            System.out.printf("  [batch_size=%d, %d lines] %.1f JDBC round trips per invoice%n",
+                    batchSize, lines, (double) statements.get() / invoices);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Invoice createInvoice() {
+        invoices++;
+        return invoiceService.createInvoice(payload);
+    }
+
+    private static InvoicePayload payload(ObjectMapper objectMapper, int lines) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 1; i <= lines; i++) {
+            items.add(Map.of("name", "Item " + i, "sku", "SKU-" + i, "unitPrice", 100 + i, "quantity", 1 + i % 3));
+        }
+        Map<String, Object> invoice = new LinkedHashMap<>();
+        invoice.put("agentId", "benchmark-agent");
+        invoice.put("createdBy", "benchmark");
+        invoice.put("customerSnapshotJson", "{\"name\":\"Benchmark Customer\"}");
+        invoice.put("status", "DRAFT");
+        invoice.put("items", items);
+        return objectMapper.convertValue(invoice, InvoicePayload.class);
+    }
+
+    // Wraps the DataSource so every statement execution (one database round trip) is counted
+    private record StatementCounter(AtomicLong executions) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? proxy(Connection.class, connection, this::onConnection) : result;
+            });
+        }
+
+        private Object onConnection(Object target, Method method, Object[] args) throws Throwable {
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                Class<?> type = method.getReturnType();
+                return proxy(type, statement, (t, m, a) -> {
+                    if (m.getName().startsWith("execute")) {
+                        executions.incrementAndGet();
+                    }
+                    return invoke(t, m, a);
+                });
+            }
+            return result;
+        }
+
+        private interface Handler {
+            Object handle(Object target, Method method, Object[] args) throws Throwable;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<?> type, Object target, Handler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> handler.handle(target, method, args));
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
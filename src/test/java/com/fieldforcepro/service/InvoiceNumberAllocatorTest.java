@@ -0,0 +1,201 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.InvoiceNumberSequence;
+import com.fieldforcepro.repository.InvoiceNumberSequenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceNumberAllocatorTest {
+
+    private static final int BLOCK_SIZE = 5;
+
+    @Mock
+    private InvoiceNumberSequenceRepository sequenceRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Committed invoice_number_sequences rows by year
+    private final Map<Integer, InvoiceNumberSequence> rows = new ConcurrentHashMap<>();
+
+    private InvoiceNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        lenient().when(sequenceRepository.findForUpdate(anyInt()))
+                .thenAnswer(i -> Optional.ofNullable(rows.get(i.<Integer>getArgument(0))));
+        lenient().when(sequenceRepository.saveAndFlush(any())).thenAnswer(i -> {
+            InvoiceNumberSequence row = i.getArgument(0);
+            if (rows.putIfAbsent(row.getYear(), row) != null) {
+                throw new DataIntegrityViolationException("Duplicate entry for key 'PRIMARY'");
+            }
+            return row;
+        });
+        allocator = new InvoiceNumberAllocator(sequenceRepository, transactionManager, BLOCK_SIZE);
+    }
+
+    @Test
+    void servesBlocksFromMemoryAndReservesTheNextBlockWhenExhausted() {
+        List<Long> numbers = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            numbers.add(allocator.next(2026));
+        }
+
+        assertThat(numbers).containsExactlyElementsOf(LongStream.rangeClosed(1, 12).boxed().toList());
+        // Blocks 1-5, 6-10 and 11-15
+        verify(sequenceRepository, times(3)).findForUpdate(2026);
+        assertThat(rows.get(2026).getNextValue()).isEqualTo(16);
+    }
+
+    @Test
+    void eachYearHasItsOwnSequence() {
+        assertThat(allocator.next(2026)).isEqualTo(1);
+        assertThat(allocator.next(2026)).isEqualTo(2);
+        assertThat(allocator.next(2027)).isEqualTo(1);
+        assertThat(allocator.next(2026)).isEqualTo(3);
+        assertThat(allocator.next(2027)).isEqualTo(2);
+
+        assertThat(rows.get(2026).getNextValue()).isEqualTo(1 + BLOCK_SIZE);
+        assertThat(rows.get(2027).getNextValue()).isEqualTo(1 + BLOCK_SIZE);
+    }
+
+    @Test
+    void continuesAfterBlocksReservedByOtherInstances() {
+        rows.put(2026, InvoiceNumberSequence.builder().year(2026).nextValue(41).build());
+
+        assertThat(allocator.next(2026)).isEqualTo(41);
+        assertThat(rows.get(2026).getNextValue()).isEqualTo(41 + BLOCK_SIZE);
+    }
+
+    @Test
+    void retriesWhenAnotherInstanceInsertedTheYearRowFirst() {
+        when(sequenceRepository.findForUpdate(2026))
+                .thenAnswer(i -> {
+                    // The other instance commits its row between our read and our insert
+                    rows.put(2026, InvoiceNumberSequence.builder().year(2026).nextValue(21).build());
+                    return Optional.empty();
+                })
+                .thenAnswer(i -> Optional.ofNullable(rows.get(2026)));
+
+        assertThat(allocator.next(2026)).isEqualTo(21);
+        assertThat(rows.get(2026).getNextValue()).isEqualTo(21 + BLOCK_SIZE);
+    }
+
+    @Test
+    void retriesDeadlocksAndLockWaitTimeouts() {
+        when(sequenceRepository.findForUpdate(2026))
+                .thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .thenThrow(new PessimisticLockingFailureException("Lock wait timeout exceeded"))
+                .thenAnswer(i -> Optional.ofNullable(rows.get(2026)));
+
+        assertThat(allocator.next(2026)).isEqualTo(1);
+    }
+
+    @Test
+    void givesUpAfterRepeatedLockFailures() {
+        when(sequenceRepository.findForUpdate(2026))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        assertThatThrownBy(() -> allocator.next(2026)).isInstanceOf(CannotAcquireLockException.class);
+        verify(sequenceRepository, times(3)).findForUpdate(2026);
+    }
+
+    @Test
+    void aSlowReservationDoesNotHoldUpOtherYearsOrNumbersInMemory() throws Exception {
+        assertThat(allocator.next(2026)).isEqualTo(1);
+        CountDownLatch reserving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sequenceRepository.findForUpdate(2027)).thenAnswer(i -> {
+            reserving.countDown();
+            release.await();
+            return Optional.empty();
+        });
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> first2027 = pool.submit(() -> allocator.next(2027));
+            assertThat(reserving.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 2027's row lock wait is still in progress
+            assertThat(allocator.next(2026)).isEqualTo(2);
+            assertThat(allocator.next(2028)).isEqualTo(1);
+            assertThat(first2027).isNotDone();
+
+            release.countDown();
+            assertThat(first2027.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentCallersAndInstancesNeverShareANumber() throws Exception {
+        // SELECT ... FOR UPDATE: the row lock is taken by the read and held until commit
+        ReentrantLock rowLock = new ReentrantLock();
+        when(sequenceRepository.findForUpdate(2026)).thenAnswer(i -> {
+            rowLock.lock();
+            return Optional.ofNullable(rows.get(2026));
+        });
+        doAnswer(i -> {
+            rowLock.unlock();
+            return null;
+        }).when(transactionManager).commit(any());
+        InvoiceNumberAllocator otherInstance = new InvoiceNumberAllocator(sequenceRepository, transactionManager, BLOCK_SIZE);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                InvoiceNumberAllocator instance = t % 2 == 0 ? allocator : otherInstance;
+                results.add(pool.submit(() -> {
+                    List<Long> taken = new ArrayList<>();
+                    for (int i = 0; i < 250; i++) {
+                        taken.add(instance.next(2026));
+                    }
+                    return taken;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> result : results) {
+                all.addAll(result.get());
+            }
+            assertThat(all).hasSize(8 * 250);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
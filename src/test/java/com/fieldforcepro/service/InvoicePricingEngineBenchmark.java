@@ -0,0 +1,100 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.service.InvoicePricingEngine.Mode;
+import com.fieldforcepro.service.InvoicePricingEngine.PricedInvoice;
+import com.fieldforcepro.service.InvoiceService.InvoiceItemPayload;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import com.fieldforcepro.service.ProductPriceCache.Prices;
+import com.fieldforcepro.service.ProductPriceCache.ProductPrice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of InvoicePricingEngine.price for an invoice of catalog lines, with the price snapshot
+ * already loaded. In VALIDATE mode the payload carries the correct client values, so every line
+ * is checked and none is rejected. No database is needed:
+ * mvn -Pbenchmarks test-compile exec:exec -Dbenchmarks.include=InvoicePricingEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoicePricingEngineBenchmark {
+
+    @Param({"VALIDATE", "AUTO_FILL"})
+    public Mode mode;
+
+    @Param({"50"})
+    public int lines;
+
+    private InvoicePricingEngine engine;
+    private InvoicePayload payload;
+
+    @Setup
+    public void setUp() {
+        Map<Long, ProductPrice> products = new HashMap<>();
+        for (long id = 1; id <= 500; id++) {
+            products.put(id, new ProductPrice(1_000 + id * 37, id % 3 == 0 ? 1200 : 1800, "Product " + id, "SKU-" + id));
+        }
+        Prices prices = new Prices(Map.copyOf(products), 1800, Instant.now());
+        ProductPriceCache priceCache = new ProductPriceCache(null, "18", "", Duration.ofDays(1)) {
+            @Override
+            public Prices current() {
+                return prices;
+            }
+        };
+
+        List<InvoiceItemPayload> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            long productId = 1 + (i * 7L) % 500;
+            items.add(new InvoiceItemPayload(null, productId, null, null, null, 1 + i % 4,
+                    new BigDecimal(i % 5 == 0 ? "1.25" : "0"), null, null));
+        }
+        InvoicePayload draft = payload(items, null, null, null, null);
+        // Priced once so VALIDATE sees matching client values
+        PricedInvoice priced = new InvoicePricingEngine(priceCache, Mode.AUTO_FILL).price(draft);
+        payload = payload(priced.items(), priced.subtotal(), priced.totalDiscount(), priced.taxAmount(),
+                priced.total());
+        engine = new InvoicePricingEngine(priceCache, mode);
+    }
+
+    @Benchmark
+    public PricedInvoice price() {
+        return engine.price(payload);
+    }
+
+    private static InvoicePayload payload(List<InvoiceItemPayload> items, BigDecimal subtotal,
+                                          BigDecimal totalDiscount, BigDecimal taxAmount, BigDecimal total) {
+        return new InvoicePayload("benchmark-agent", "benchmark", null, null,
+                null, null, null, null, null,
+                null, null, null, null,
+                null, null,
+                null, null, null, null,
+                items, subtotal, totalDiscount, taxAmount, null,
+                total, "INR", "DRAFT", null,
+                null, null, null, null, null, null,
+                null, null,
+                null, null, null,
+                null, null,
+                null);
+    }
+}
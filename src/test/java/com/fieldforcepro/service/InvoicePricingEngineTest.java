@@ -0,0 +1,246 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.service.InvoicePricingEngine.Mode;
+import com.fieldforcepro.service.InvoicePricingEngine.PricedInvoice;
+import com.fieldforcepro.service.InvoiceService.InvoiceItemPayload;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import com.fieldforcepro.service.ProductPriceCache.Prices;
+import com.fieldforcepro.service.ProductPriceCache.ProductPrice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoicePricingEngineTest {
+
+    @Mock
+    private ProductPriceCache priceCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(priceCache.current()).thenReturn(new Prices(Map.of(
+                1L, new ProductPrice(10_000, 1800, "Filter", "FLT"),
+                2L, new ProductPrice(1_010, 500, "Gasket", "GSK"),
+                3L, new ProductPrice(25, 1800, "Washer", "WSH")
+        ), 1200, Instant.now()));
+    }
+
+    // tax = (taxable paise * basis points + 5000) / 10000, i.e. half up to the paisa
+    @ParameterizedTest
+    @CsvSource({
+            // unitPrice, quantity, discount, rate (bp), expected tax
+            "99.99, 3, 0,    1800, 53.99",
+            "0.25,  1, 0,    1800, 0.05",
+            "0.24,  1, 0,    1800, 0.04",
+            "0.75,  1, 0,    1800, 0.14",
+            "10.10, 1, 0,    500,  0.51",
+            "10.30, 1, 0.30, 1200, 1.20",
+            "0.04,  1, 0,    1200, 0.00",
+            "0.05,  1, 0,    1000, 0.01",
+    })
+    void taxIsRoundedHalfUpToThePaisa(String unitPrice, int quantity, String discount, int rate, String expectedTax) {
+        InvoicePricingEngine engine = new InvoicePricingEngine(fixedRate(rate), Mode.AUTO_FILL);
+
+        PricedInvoice priced = engine.price(payload(line(null, unitPrice, quantity, discount, null, null)));
+
+        assertThat(priced.items().get(0).tax()).isEqualTo(new BigDecimal(expectedTax));
+        assertThat(priced.taxAmount()).isEqualTo(new BigDecimal(expectedTax));
+    }
+
+    @Test
+    void lineTaxesAreRoundedBeforeTheyAreSummed() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.AUTO_FILL);
+
+        // 0.045 per washer line would sum to 0.09; each line rounds to 0.05 first
+        PricedInvoice priced = engine.price(payload(line(3L, null, 1, null, null, null),
+                line(3L, null, 1, null, null, null)));
+
+        assertThat(priced.taxAmount()).isEqualTo(new BigDecimal("0.10"));
+        assertThat(priced.total()).isEqualTo(new BigDecimal("0.60"));
+    }
+
+    @Test
+    void autoFillReplacesClientValuesWithCatalogPricing() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.AUTO_FILL);
+        InvoiceItemPayload stale = new InvoiceItemPayload(7L, 1L, null, null, new BigDecimal("90.00"), 2,
+                new BigDecimal("20.00"), new BigDecimal("1.00"), new BigDecimal("1.00"));
+
+        PricedInvoice priced = engine.price(payload(new BigDecimal("15.00"), stale,
+                line(null, "50.005", 1, null, null, null)));
+
+        InvoiceItemPayload filter = priced.items().get(0);
+        assertThat(filter.id()).isEqualTo(7L);
+        assertThat(filter.name()).isEqualTo("Filter");
+        assertThat(filter.sku()).isEqualTo("FLT");
+        assertThat(filter.unitPrice()).isEqualTo(new BigDecimal("100.00"));
+        assertThat(filter.discount()).isEqualTo(new BigDecimal("20.00"));
+        assertThat(filter.tax()).isEqualTo(new BigDecimal("32.40"));
+        assertThat(filter.lineTotal()).isEqualTo(new BigDecimal("212.40"));
+        // Free-text line: client price rounded to the paisa, default GST rate
+        InvoiceItemPayload custom = priced.items().get(1);
+        assertThat(custom.unitPrice()).isEqualTo(new BigDecimal("50.01"));
+        assertThat(custom.tax()).isEqualTo(new BigDecimal("6.00"));
+        assertThat(custom.lineTotal()).isEqualTo(new BigDecimal("56.01"));
+
+        assertThat(priced.subtotal()).isEqualTo(new BigDecimal("250.01"));
+        assertThat(priced.totalDiscount()).isEqualTo(new BigDecimal("20.00"));
+        assertThat(priced.taxAmount()).isEqualTo(new BigDecimal("38.40"));
+        assertThat(priced.shipping()).isEqualTo(new BigDecimal("15.00"));
+        assertThat(priced.total()).isEqualTo(new BigDecimal("283.41"));
+    }
+
+    @Test
+    void validateAcceptsMatchingValuesAndFillsMissingOnes() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.VALIDATE);
+
+        PricedInvoice priced = engine.price(payload(
+                line(1L, "100", 1, "0", "18.0", "118"),
+                line(2L, null, 2, null, null, null)));
+
+        assertThat(priced.items().get(1).tax()).isEqualTo(new BigDecimal("1.01"));
+        assertThat(priced.total()).isEqualTo(new BigDecimal("139.21"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "99.00  | 0    | 18.00 | 118.00 | Line 1: unitPrice 99.00 does not match computed 100.00",
+            "100.00 | 0    | 18.01 | 118.00 | Line 1: tax 18.01 does not match computed 18.00",
+            "100.00 | 0    | 18.00 | 117.99 | Line 1: lineTotal 117.99 does not match computed 118.00",
+            "100.00 | 0.10 | 18.00 | 118.00 | Line 1: tax 18.00 does not match computed 17.98",
+    })
+    void validateRejectsClientValuesThatDifferFromTheComputedOnes(String unitPrice, String discount, String tax,
+                                                                  String lineTotal, String message) {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.VALIDATE);
+
+        assertThatThrownBy(() -> engine.price(payload(line(1L, unitPrice, 1, discount, tax, lineTotal))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(message);
+    }
+
+    @Test
+    void validateRejectsWrongInvoiceTotals() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.VALIDATE);
+        InvoicePayload payload = payload(null, new BigDecimal("100.00"), new BigDecimal("236.00"),
+                line(1L, null, 2, null, null, null));
+
+        assertThatThrownBy(() -> engine.price(payload))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("subtotal 100.00 does not match computed 200.00");
+    }
+
+    @Test
+    void discountMustBeBetweenZeroAndTheLineAmount() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.AUTO_FILL);
+
+        PricedInvoice free = engine.price(payload(line(1L, null, 2, "200.00", null, null)));
+        assertThat(free.items().get(0).tax()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(free.total()).isEqualTo(new BigDecimal("0.00"));
+
+        assertThatThrownBy(() -> engine.price(payload(line(1L, null, 2, "200.01", null, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Line 1: discount must be between 0 and the line amount");
+        assertThatThrownBy(() -> engine.price(payload(line(1L, null, 2, "-0.01", null, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Line 1: discount must be between 0 and the line amount");
+        // A zero quantity leaves nothing to discount
+        assertThatThrownBy(() -> engine.price(payload(line(1L, null, 0, "1.00", null, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unknownProductsAreRejectedInEveryPricingMode() {
+        for (Mode mode : List.of(Mode.VALIDATE, Mode.AUTO_FILL)) {
+            InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, mode);
+
+            assertThatThrownBy(() -> engine.price(payload(line(1L, null, 1, null, null, null),
+                    line(99L, "10.00", 1, null, null, null))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Line 2: unknown product 99");
+        }
+    }
+
+    @Test
+    void rejectsLinesThatCannotBePriced() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.AUTO_FILL);
+
+        assertThatThrownBy(() -> engine.price(payload(line(null, null, 1, null, null, null))))
+                .hasMessage("Line 1: unitPrice is required without a productId");
+        assertThatThrownBy(() -> engine.price(payload(line(1L, null, -1, null, null, null))))
+                .hasMessage("Line 1: quantity cannot be negative");
+        assertThatThrownBy(() -> engine.price(payload(new BigDecimal("-1"), line(1L, null, 1, null, null, null))))
+                .hasMessage("Shipping cannot be negative");
+        assertThatThrownBy(() -> engine.price(payload(line(null, "92233720368547758.07", 2, null, null, null))))
+                .hasMessage("Amount out of range");
+    }
+
+    @Test
+    void offKeepsClientValuesWithoutReadingTheCatalog() {
+        InvoicePricingEngine engine = new InvoicePricingEngine(priceCache, Mode.OFF);
+        InvoiceItemPayload item = line(99L, "1.00", 1, null, "5.00", "6.00");
+
+        PricedInvoice priced = engine.price(payload(null, new BigDecimal("1.00"), new BigDecimal("6.00"), item));
+
+        assertThat(priced.items()).containsExactly(item);
+        assertThat(priced.subtotal()).isEqualTo(new BigDecimal("1.00"));
+        assertThat(priced.taxAmount()).isEqualTo(BigDecimal.ZERO);
+        assertThat(priced.total()).isEqualTo(new BigDecimal("6.00"));
+        verifyNoInteractions(priceCache);
+    }
+
+    // A catalog without products, so free-text lines use the given default rate
+    private static ProductPriceCache fixedRate(int basisPoints) {
+        ProductPriceCache cache = mock(ProductPriceCache.class);
+        when(cache.current()).thenReturn(new Prices(Map.of(), basisPoints, Instant.now()));
+        return cache;
+    }
+
+    private static InvoiceItemPayload line(Long productId, String unitPrice, int quantity, String discount,
+                                           String tax, String lineTotal) {
+        return new InvoiceItemPayload(null, productId, null, null, amount(unitPrice), quantity,
+                amount(discount), amount(tax), amount(lineTotal));
+    }
+
+    private static BigDecimal amount(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static InvoicePayload payload(InvoiceItemPayload... items) {
+        return payload(null, items);
+    }
+
+    private static InvoicePayload payload(BigDecimal shipping, InvoiceItemPayload... items) {
+        return payload(shipping, null, null, items);
+    }
+
+    private static InvoicePayload payload(BigDecimal shipping, BigDecimal subtotal, BigDecimal total,
+                                          InvoiceItemPayload... items) {
+        return new InvoicePayload("agent-1", "user-1", null, null,
+                null, null, null, null, null,
+                null, null, null, null,
+                null, null,
+                null, null, null, null,
+                List.of(items), subtotal, null, null, shipping,
+                total, "INR", "DRAFT", null,
+                null, null, null, null, null, null,
+                null, null,
+                null, null, null,
+                null, null,
+                null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceSearchIndexTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InvoiceSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvoiceSearchIndex(invoiceRepository, jdbcTemplate);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "INV-2026-000123        | +\"INV-2026-000123\"",
+            "acme pune              | +\"acme\" +\"pune\"",
+            "'  acme   27ABCDE  '   | +\"acme\" +\"27ABCDE\"",
+            "ac\"me                 | +\"acme\"",
+            "a                      | +a*",
+            "9 acme                 | +9* +\"acme\"",
+            "+-foo                  | +\"+-foo\"",
+            "é                      | +é*",
+    })
+    void everyTermIsRequired(String text, String expected) {
+        assertThat(index.booleanQuery(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "'\"\"'",
+            "'\"'",
+            "'-'",
+            "'  *  '",
+            "'- + \"'",
+    })
+    void operatorsAndQuotesAloneLeaveNoQuery(String text) {
+        assertThat(index.booleanQuery(text)).isEmpty();
+    }
+
+    @Test
+    void termsShorterThanTheServerTokenSizeUsePrefixMatching() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("MySQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any())).thenReturn(1);
+        when(jdbcTemplate.queryForObject("SELECT @@ngram_token_size", Integer.class)).thenReturn(3);
+
+        index.ensureIndex();
+
+        assertThat(index.fullTextAvailable()).isTrue();
+        assertThat(index.booleanQuery("ab abc a-b")).isEqualTo("+ab* +\"abc\" +\"a-b\"");
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void otherDatabasesFallBackToLikeMatching() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        index.ensureIndex();
+
+        assertThat(index.fullTextAvailable()).isFalse();
+    }
+}
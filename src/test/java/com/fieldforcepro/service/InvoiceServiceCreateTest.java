@@ -0,0 +1,181 @@
+package com.fieldforcepro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceNumberSequence;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import com.fieldforcepro.repository.InvoiceAuditRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceNumberSequenceRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.service.InvoiceService.InvoiceItemPayload;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+// createInvoice against a connection pool far smaller than the number of concurrent callers
+@ExtendWith(MockitoExtension.class)
+class InvoiceServiceCreateTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int CALLERS = 12;
+    private static final int INVOICES_PER_CALLER = 25;
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private InvoiceItemRepository itemRepository;
+    @Mock
+    private InvoiceAuditRepository auditRepository;
+    @Mock
+    private InvoiceAuditOutboxRepository auditOutboxRepository;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private InvoiceNumberSequenceRepository sequenceRepository;
+    @Mock
+    private InvoicePdfUploads pdfUploads;
+    @Mock
+    private ReceivablesAgingService receivablesAging;
+    @Mock
+    private InvoiceSearchIndex searchIndex;
+
+    private final PooledTransactionManager transactionManager = new PooledTransactionManager(POOL_SIZE);
+    private final Map<Integer, InvoiceNumberSequence> rows = new ConcurrentHashMap<>();
+    private InvoiceService service;
+
+    @BeforeEach
+    void setUp() {
+        // FOR UPDATE plus insert of the year row, serialised like the row lock would
+        when(sequenceRepository.findForUpdate(anyInt())).thenAnswer(i -> {
+            synchronized (rows) {
+                return Optional.ofNullable(rows.get(i.<Integer>getArgument(0)));
+            }
+        });
+        when(sequenceRepository.saveAndFlush(any())).thenAnswer(i -> {
+            InvoiceNumberSequence row = i.getArgument(0);
+            rows.put(row.getYear(), row);
+            return row;
+        });
+        when(invoiceRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        // Block size 2: every other invoice refills a block
+        InvoiceNumberAllocator allocator = new InvoiceNumberAllocator(sequenceRepository, transactionManager, 2);
+        InvoicePricingEngine pricingEngine = new InvoicePricingEngine(null, InvoicePricingEngine.Mode.OFF);
+        service = new InvoiceService(invoiceRepository, itemRepository, auditRepository, auditOutboxRepository,
+                salesRollupService, new ObjectMapper(), allocator, pdfUploads, receivablesAging,
+                searchIndex, pricingEngine, transactionManager);
+    }
+
+    @Test
+    void blockRefillsNeverNeedASecondConnection() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < CALLERS; t++) {
+                results.add(pool.submit(() -> {
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < INVOICES_PER_CALLER; i++) {
+                        numbers.add(service.createInvoice(payload()).getInvoiceNo());
+                    }
+                    return numbers;
+                }));
+            }
+            Set<String> numbers = new HashSet<>();
+            for (Future<List<String>> result : results) {
+                numbers.addAll(result.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(numbers).hasSize(CALLERS * INVOICES_PER_CALLER);
+            assertThat(transactionManager.mostHeldByOneThread.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static InvoicePayload payload() {
+        List<InvoiceItemPayload> items = List.of(new InvoiceItemPayload(null, null, "Filter", "FLT",
+                new BigDecimal("100.00"), 1, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("100.00")));
+        return new InvoicePayload("agent-1", "agent-1", null, null,
+                null, null, null, null, null,
+                null, null, null, null,
+                null, null,
+                null, null, null, null,
+                items, new BigDecimal("100.00"), null, null, null,
+                new BigDecimal("100.00"), "INR", "DRAFT", null,
+                null, null, null, null, null, null,
+                null, null,
+                null, null, null,
+                null, null,
+                null);
+    }
+
+    // Every transaction takes a pooled connection; waiting longer than Hikari's timeout fails the caller
+    private static final class PooledTransactionManager implements PlatformTransactionManager {
+        private final Semaphore connections;
+        private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+        private final AtomicInteger mostHeldByOneThread = new AtomicInteger();
+
+        PooledTransactionManager(int size) {
+            this.connections = new Semaphore(size, true);
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            try {
+                if (!connections.tryAcquire(2, TimeUnit.SECONDS)) {
+                    throw new CannotCreateTransactionException("Connection is not available, request timed out");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotCreateTransactionException("Interrupted waiting for a connection");
+            }
+            int count = ++held.get()[0];
+            mostHeldByOneThread.accumulateAndGet(count, Math::max);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            release();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            release();
+        }
+
+        private void release() {
+            held.get()[0]--;
+            connections.release();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.fieldforcepro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceAuditOutboxRepository;
+import com.fieldforcepro.repository.InvoiceAuditRepository;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.service.InvoiceService.InvoiceItemPayload;
+import com.fieldforcepro.service.InvoiceService.InvoicePayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Line matching of updateInvoice: by id, then productId, then sku
+@ExtendWith(MockitoExtension.class)
+class InvoiceServiceItemMergeTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private InvoiceItemRepository itemRepository;
+    @Mock
+    private InvoiceAuditRepository auditRepository;
+    @Mock
+    private InvoiceAuditOutboxRepository auditOutboxRepository;
+    @Mock
+    private SalesRollupService salesRollupService;
+    @Mock
+    private InvoiceNumberAllocator invoiceNumberAllocator;
+    @Mock
+    private InvoicePdfUploads pdfUploads;
+    @Mock
+    private ReceivablesAgingService receivablesAging;
+    @Mock
+    private InvoiceSearchIndex searchIndex;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InvoiceService service;
+    private Invoice invoice;
+    private InvoiceItem filter;
+    private InvoiceItem pump;
+    private InvoiceItem labour;
+
+    @BeforeEach
+    void setUp() {
+        // Pricing OFF keeps the payload lines as sent, so only the merge is under test
+        InvoicePricingEngine pricingEngine = new InvoicePricingEngine(null, InvoicePricingEngine.Mode.OFF);
+        service = new InvoiceService(invoiceRepository, itemRepository, auditRepository, auditOutboxRepository,
+                salesRollupService, new ObjectMapper(), invoiceNumberAllocator, pdfUploads, receivablesAging,
+                searchIndex, pricingEngine, transactionManager);
+
+        invoice = Invoice.builder().id("inv-1").status("DRAFT").version(3L).build();
+        filter = item(1L, 10L, "FLT", "Filter");
+        pump = item(2L, 20L, "PMP", "Pump");
+        labour = item(3L, null, "LAB", "Labour");
+        invoice.getItems().addAll(List.of(filter, pump, labour));
+        when(invoiceRepository.findById("inv-1")).thenReturn(Optional.of(invoice));
+        when(invoiceRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    void matchesByIdBeforeProductIdAndSku() {
+        // Line 2 carries pump's product and sku but filter's id
+        update(line(2L, 30L, "NEW", "Pump v2", 5), line(1L, 20L, "PMP", "Filter renamed", 1),
+                line(null, 10L, "FLT", "Filter", 2), line(null, null, "LAB", "Labour", 1));
+
+        assertThat(invoice.getItems()).hasSize(4).startsWith(filter, pump, labour);
+        assertThat(pump.getName()).isEqualTo("Pump v2");
+        assertThat(pump.getProductId()).isEqualTo(30L);
+        assertThat(pump.getQuantity()).isEqualTo(5);
+        assertThat(filter.getName()).isEqualTo("Filter renamed");
+        // Filter's row was already taken by id, so its product line becomes a new row
+        assertThat(invoice.getItems().get(3).getId()).isNull();
+        assertThat(invoice.getItems().get(3).getProductId()).isEqualTo(10L);
+    }
+
+    @Test
+    void fallsBackToProductIdThenSku() {
+        update(line(null, 20L, "OTHER", "Pump", 4), line(99L, null, "LAB", "Labour", 2),
+                line(null, 10L, null, "Filter", 1));
+
+        assertThat(invoice.getItems()).containsExactly(filter, pump, labour);
+        assertThat(pump.getQuantity()).isEqualTo(4);
+        assertThat(pump.getSku()).isEqualTo("OTHER");
+        assertThat(labour.getQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void insertsUnmatchedLinesAndRemovesLeftoverRows() {
+        update(line(null, 20L, "PMP", "Pump", 1), line(null, 40L, "VLV", "Valve", 6));
+
+        assertThat(invoice.getItems()).hasSize(2);
+        assertThat(invoice.getItems().get(0)).isSameAs(pump);
+        InvoiceItem valve = invoice.getItems().get(1);
+        assertThat(valve.getId()).isNull();
+        assertThat(valve.getInvoice()).isSameAs(invoice);
+        assertThat(valve.getName()).isEqualTo("Valve");
+        assertThat(valve.getQuantity()).isEqualTo(6);
+    }
+
+    @Test
+    void eachExistingRowMatchesAtMostOnce() {
+        update(line(null, 10L, null, "Filter A", 1), line(null, 10L, null, "Filter B", 1));
+
+        assertThat(invoice.getItems()).hasSize(2);
+        assertThat(invoice.getItems().get(0)).isSameAs(filter);
+        assertThat(filter.getName()).isEqualTo("Filter A");
+        assertThat(invoice.getItems().get(1).getId()).isNull();
+        assertThat(invoice.getItems().get(1).getName()).isEqualTo("Filter B");
+    }
+
+    @Test
+    void blankSkuNeverMatches() {
+        labour.setSku(" ");
+
+        update(line(null, null, " ", "Labour", 1));
+
+        assertThat(invoice.getItems()).hasSize(1);
+        assertThat(invoice.getItems().get(0)).isNotSameAs(labour);
+        assertThat(invoice.getItems().get(0).getId()).isNull();
+    }
+
+    @Test
+    void unchangedLinesStayEqual() {
+        BigDecimal before = pump.getLineTotal();
+
+        update(line(2L, 20L, "PMP", "Pump", 1));
+
+        assertThat(invoice.getItems()).containsExactly(pump);
+        assertThat(pump.getLineTotal()).isEqualByComparingTo(before);
+    }
+
+    private void update(InvoiceItemPayload... lines) {
+        InvoicePayload payload = new InvoicePayload("agent-1", "user-1", null, "{\"name\":\"Acme\"}",
+                null, null, null, null, null,
+                null, null, null, null,
+                null, null,
+                null, null, null, null,
+                List.of(lines), new BigDecimal("100.00"), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                new BigDecimal("100.00"), "INR", null, null,
+                null, null, null, null, null, null,
+                null, null,
+                null, null, null,
+                null, null,
+                3L);
+        assertThat(service.updateInvoice("inv-1", payload)).isPresent();
+    }
+
+    private static InvoiceItemPayload line(Long id, Long productId, String sku, String name, int quantity) {
+        BigDecimal total = new BigDecimal("100.00").multiply(BigDecimal.valueOf(quantity));
+        return new InvoiceItemPayload(id, productId, name, sku, new BigDecimal("100.00"), quantity,
+                BigDecimal.ZERO, BigDecimal.ZERO, total);
+    }
+
+    private static InvoiceItem item(Long id, Long productId, String sku, String name) {
+        return InvoiceItem.builder()
+                .id(id)
+                .productId(productId)
+                .sku(sku)
+                .name(name)
+                .unitPrice(new BigDecimal("100.00"))
+                .quantity(1)
+                .discount(BigDecimal.ZERO)
+                .tax(BigDecimal.ZERO)
+                .lineTotal(new BigDecimal("100.00"))
+                .build();
+    }
+}
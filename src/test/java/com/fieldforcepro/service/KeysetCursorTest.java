@@ -0,0 +1,62 @@
+package com.fieldforcepro.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsTimestampWithNanosAndId() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2026-03-14T09:26:53.589793238Z"),
+                "5f0c8a4e-9b1d-4c3e-8f2a-7d6b5c4a3e21");
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripsTimestampBeforeEpoch() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("1969-12-31T23:59:58.5Z"), "a");
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void idMayContainSeparators() {
+        KeysetCursor cursor = new KeysetCursor(Instant.ofEpochSecond(1_700_000_000L), "INV.2026|7");
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void emptyIdStartsBeforeEveryRowOfTheTimestamp() {
+        KeysetCursor cursor = new KeysetCursor(Instant.EPOCH, "");
+
+        assertThat(KeysetCursor.decode(cursor.encode()).afterId()).isEmpty();
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new KeysetCursor(Instant.ofEpochSecond(1_700_000_000L, 999), "??>>~~").encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "1700000000|id", "1700000000.5", "abc.5|id", "1|2.3", ""})
+    void rejectsMalformedCursors(String raw) {
+        String token = raw.equals("not base64!") ? raw
+                : Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(token))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+}
@@ -0,0 +1,181 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.service.ReceivablesAgingService.AgingBuckets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ReceivablesAgingServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MutableClock clock = new MutableClock(START);
+    private ReceivablesAgingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReceivablesAgingService(invoiceRepository, jdbcTemplate, transactionManager, clock);
+    }
+
+    @Test
+    void invoiceMovesThroughEveryBucketAsDaysPass() {
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "100.00", START));
+
+        assertBuckets(buckets(), buckets("100.00", "0", "0", "0", "0", 1));
+        clock.advanceDays(1);
+        assertBuckets(buckets(), buckets("0", "100.00", "0", "0", "0", 1));
+        clock.advanceDays(29);
+        assertBuckets(buckets(), buckets("0", "100.00", "0", "0", "0", 1));
+        clock.advanceDays(1);
+        assertBuckets(buckets(), buckets("0", "0", "100.00", "0", "0", 1));
+        clock.advanceDays(30);
+        assertBuckets(buckets(), buckets("0", "0", "0", "100.00", "0", 1));
+        clock.advanceDays(30);
+        assertBuckets(buckets(), buckets("0", "0", "0", "0", "100.00", 1));
+        clock.advanceDays(365);
+        assertBuckets(buckets(), buckets("0", "0", "0", "0", "100.00", 1));
+    }
+
+    @Test
+    void rollingSeveralDaysAtOnceCrossesEachBoundaryOnce() {
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "100.00", START));
+        service.onSaved(invoice("inv-2", "a1", "c1", "SENT", "40.00", START.plusDays(20)));
+        service.onSaved(invoice("inv-3", "a2", "c2", "SENT", "7.50", START.plusDays(90)));
+
+        clock.advanceDays(95);
+
+        assertBuckets(buckets(), buckets("0", "7.50", "0", "40.00", "100.00", 3));
+        assertBuckets(service.report("a1", null).buckets(), buckets("0", "0", "0", "40.00", "100.00", 2));
+        assertBuckets(service.report(null, "c2").buckets(), buckets("0", "7.50", "0", "0", "0", 1));
+    }
+
+    @Test
+    void overdueInvoiceStartsInItsBucketAndKeepsAging() {
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "100.00", START.minusDays(45)));
+
+        assertBuckets(buckets(), buckets("0", "0", "100.00", "0", "0", 1));
+        clock.advanceDays(16);
+        assertBuckets(buckets(), buckets("0", "0", "0", "100.00", "0", 1));
+    }
+
+    @Test
+    void updatesReplaceAndSettlementRemovesTheInvoice() {
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "100.00", START));
+        clock.advanceDays(10);
+
+        // New total and a later due date put it back in current
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "80.00", START.plusDays(15)));
+        assertBuckets(buckets(), buckets("80.00", "0", "0", "0", "0", 1));
+
+        clock.advanceDays(10);
+        service.onSaved(invoice("inv-1", "a1", "c1", "PAID", "80.00", START.plusDays(15)));
+        assertBuckets(buckets(), buckets("0", "0", "0", "0", "0", 0));
+        assertBuckets(service.report("a1", null).buckets(), buckets("0", "0", "0", "0", "0", 0));
+
+        // A removed invoice must not be moved by later roll-forwards
+        clock.advanceDays(100);
+        assertBuckets(buckets(), buckets("0", "0", "0", "0", "0", 0));
+    }
+
+    @Test
+    void deletedInvoiceLeavesTheBuckets() {
+        service.onSaved(invoice("inv-1", "a1", "c1", "SENT", "100.00", START));
+        service.onSaved(invoice("inv-2", "a1", "c1", "SENT", "50.00", START));
+
+        service.onDeleted("inv-1");
+        clock.advanceDays(31);
+
+        assertBuckets(buckets(), buckets("0", "0", "50.00", "0", "0", 1));
+    }
+
+    @Test
+    void reportIsAsOfTheCurrentDay() {
+        clock.advanceDays(3);
+
+        assertThat(service.report(null, null).asOf()).isEqualTo(START.plusDays(3));
+    }
+
+    private AgingBuckets buckets() {
+        return service.report(null, null).buckets();
+    }
+
+    // Amounts compared by value: empty buckets hold BigDecimal.ZERO
+    private static void assertBuckets(AgingBuckets actual, AgingBuckets expected) {
+        assertThat(actual).usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(expected);
+    }
+
+    private static AgingBuckets buckets(String current, String days1To30, String days31To60, String days61To90,
+                                        String over90, long openInvoices) {
+        BigDecimal[] amounts = {new BigDecimal(current), new BigDecimal(days1To30), new BigDecimal(days31To60),
+                new BigDecimal(days61To90), new BigDecimal(over90)};
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return new AgingBuckets(amounts[0], amounts[1], amounts[2], amounts[3], amounts[4], total, openInvoices);
+    }
+
+    private static Invoice invoice(String id, String agentId, String customerId, String status, String total,
+                                   LocalDate dueDay) {
+        return Invoice.builder()
+                .id(id)
+                .agentId(agentId)
+                .customerId(customerId)
+                .status(status)
+                .total(new BigDecimal(total))
+                .dueDate(dueDay.atStartOfDay(ZoneOffset.UTC).toInstant())
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(LocalDate day) {
+            this.now = day.atTime(12, 0).toInstant(ZoneOffset.UTC);
+        }
+
+        void advanceDays(int days) {
+            now = now.plusSeconds(days * 86_400L);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.fieldforcepro.service;
+
+import com.fieldforcepro.model.Invoice;
+import com.fieldforcepro.model.InvoiceItem;
+import com.fieldforcepro.repository.InvoiceItemRepository;
+import com.fieldforcepro.repository.InvoiceRepository;
+import com.fieldforcepro.repository.SalesDailyByAgentRepository;
+import com.fieldforcepro.repository.SalesDailyByProductRepository;
+import com.fieldforcepro.repository.SalesRollupLockRepository;
+import com.fieldforcepro.service.SalesRollupService.Contribution;
+import com.fieldforcepro.service.SalesRollupService.ProductLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+    @Mock
+    private SalesDailyByAgentRepository agentRollupRepository;
+    @Mock
+    private SalesDailyByProductRepository productRollupRepository;
+    @Mock
+    private InvoiceRepository invoiceRepository;
+    @Mock
+    private InvoiceItemRepository itemRepository;
+    @Mock
+    private SalesRollupLockRepository lockRepository;
+
+    private SalesRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SalesRollupService(agentRollupRepository, productRollupRepository, invoiceRepository, itemRepository,
+                lockRepository);
+    }
+
+    @Test
+    void contributionGroupsLinesByProductInIdOrder() {
+        Invoice invoice = Invoice.builder()
+                .agentId("a1")
+                .status("SENT")
+                .subtotal(new BigDecimal("300.00"))
+                .taxAmount(null)
+                .total(new BigDecimal("354.00"))
+                .createdAt(DAY.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant())
+                .build();
+        List<InvoiceItem> items = List.of(
+                item(7L, "Pump", 1, "100.00"),
+                item(3L, "Filter", 2, "50.00"),
+                item(7L, null, 3, "25.00"),
+                item(null, "Labour", 1, "10.00"));
+
+        Contribution contribution = service.contributionOf(invoice, items);
+
+        assertThat(contribution.salesDate()).isEqualTo(DAY);
+        assertThat(contribution.taxAmount()).isEqualByComparingTo("0");
+        assertThat(contribution.lines()).containsExactly(
+                new ProductLine(0L, "Labour", 1, 1, new BigDecimal("10.00")),
+                new ProductLine(3L, "Filter", 1, 2, new BigDecimal("50.00")),
+                new ProductLine(7L, "Pump", 2, 4, new BigDecimal("125.00")));
+    }
+
+    @Test
+    void replaceWithEqualContributionWritesNothing() {
+        service.replace(contribution("a1", "SENT", "100.00", line(1L, 1, "100.00")),
+                contribution("a1", "SENT", "100.00", line(1L, 1, "100.00")));
+
+        verifyNoInteractions(agentRollupRepository, productRollupRepository, lockRepository);
+    }
+
+    @Test
+    void replaceMovesTheInvoiceBetweenStatusRows() {
+        service.replace(contribution("a1", "SENT", "100.00", line(1L, 2, "100.00")),
+                contribution("a1", "PAID", "100.00", line(1L, 2, "100.00")));
+
+        verify(agentRollupRepository).applyDelta(DAY, "a1", "SENT", -1,
+                new BigDecimal("-100.00"), new BigDecimal("-18.00"), new BigDecimal("-118.00"));
+        verify(agentRollupRepository).applyDelta(DAY, "a1", "PAID", 1,
+                new BigDecimal("100.00"), new BigDecimal("18.00"), new BigDecimal("118.00"));
+        // Removal does not overwrite the product name
+        verify(productRollupRepository).applyDelta(DAY, 1L, null, "SENT", -1, -2, new BigDecimal("-100.00"));
+        verify(productRollupRepository).applyDelta(DAY, 1L, "Product 1", "PAID", 1, 2, new BigDecimal("100.00"));
+        verifyNoMoreInteractions(agentRollupRepository, productRollupRepository);
+    }
+
+    @Test
+    void contributionWithoutDayIsIgnored() {
+        service.add(new Contribution(null, "a1", "SENT", BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE, List.of()));
+
+        verifyNoInteractions(agentRollupRepository, productRollupRepository);
+    }
+
+    @Test
+    void replaceAllSumsDeltasPerRollupRow() {
+        List<Contribution> before = List.of(
+                contribution("a1", "SENT", "100.00", line(1L, 1, "100.00")),
+                contribution("a1", "SENT", "200.00", line(1L, 2, "200.00")));
+        List<Contribution> after = List.of(
+                contribution("a1", "PAID", "100.00", line(1L, 1, "100.00")),
+                contribution("a1", "PAID", "200.00", line(1L, 2, "200.00")));
+
+        service.replaceAll(before, after);
+
+        verify(agentRollupRepository).applyDelta(DAY, "a1", "SENT", -2,
+                new BigDecimal("-300.00"), new BigDecimal("-54.00"), new BigDecimal("-354.00"));
+        verify(agentRollupRepository).applyDelta(DAY, "a1", "PAID", 2,
+                new BigDecimal("300.00"), new BigDecimal("54.00"), new BigDecimal("354.00"));
+        verify(productRollupRepository).applyDelta(DAY, 1L, null, "SENT", -2, -3, new BigDecimal("-300.00"));
+        verify(productRollupRepository).applyDelta(DAY, 1L, "Product 1", "PAID", 2, 3, new BigDecimal("300.00"));
+        verifyNoMoreInteractions(agentRollupRepository, productRollupRepository);
+    }
+
+    @Test
+    void replaceAllSkipsRowsWhoseDeltasCancelOut() {
+        Contribution unchanged = contribution("a1", "SENT", "100.00", line(1L, 1, "100.00"));
+
+        service.replaceAll(List.of(unchanged), List.of(unchanged));
+
+        verifyNoInteractions(agentRollupRepository, productRollupRepository);
+    }
+
+    @Test
+    void deltasLockTheGuardRowSharedBeforeWriting() {
+        service.add(contribution("a1", "SENT", "100.00", line(1L, 1, "100.00")));
+        service.replaceAll(List.of(contribution("a1", "SENT", "100.00")), List.of(contribution("a1", "PAID", "100.00")));
+
+        InOrder order = inOrder(lockRepository, agentRollupRepository);
+        order.verify(lockRepository).lockShared();
+        order.verify(agentRollupRepository).applyDelta(eq(DAY), eq("a1"), eq("SENT"), eq(1L), any(), any(), any());
+        order.verify(lockRepository).lockShared();
+        order.verify(agentRollupRepository, times(2)).applyDelta(eq(DAY), eq("a1"), anyString(), anyLong(),
+                any(), any(), any());
+        verify(lockRepository, never()).lockExclusive();
+    }
+
+    @Test
+    void rebuildLocksTheGuardRowExclusivelyBeforeReading() {
+        when(lockRepository.lockExclusive()).thenReturn(Optional.of(1));
+        when(invoiceRepository.streamRollupInvoices()).thenReturn(Stream.empty());
+        when(itemRepository.streamRollupItems()).thenReturn(Stream.empty());
+
+        service.rebuild();
+
+        InOrder order = inOrder(lockRepository, invoiceRepository, itemRepository, agentRollupRepository);
+        order.verify(lockRepository).lockExclusive();
+        order.verify(invoiceRepository).streamRollupInvoices();
+        order.verify(itemRepository).streamRollupItems();
+        order.verify(agentRollupRepository).deleteAllRows();
+        order.verify(lockRepository).markRebuilt(any());
+        verify(lockRepository, never()).ensureRow();
+    }
+
+    @Test
+    void rebuildCreatesAMissingGuardRowBeforeLockingIt() {
+        when(lockRepository.lockExclusive()).thenReturn(Optional.empty(), Optional.of(1));
+        when(invoiceRepository.streamRollupInvoices()).thenReturn(Stream.empty());
+        when(itemRepository.streamRollupItems()).thenReturn(Stream.empty());
+
+        service.rebuild();
+
+        InOrder order = inOrder(lockRepository, invoiceRepository);
+        order.verify(lockRepository).ensureRow();
+        order.verify(lockRepository).lockExclusive();
+        order.verify(invoiceRepository).streamRollupInvoices();
+    }
+
+    private static Contribution contribution(String agentId, String status, String subtotal, ProductLine... lines) {
+        BigDecimal net = new BigDecimal(subtotal);
+        BigDecimal tax = net.multiply(new BigDecimal("0.18")).setScale(2);
+        return new Contribution(DAY, agentId, status, net, tax, net.add(tax), List.of(lines));
+    }
+
+    private static ProductLine line(long productId, long quantity, String lineTotal) {
+        return new ProductLine(productId, "Product " + productId, 1, quantity, new BigDecimal(lineTotal));
+    }
+
+    private static InvoiceItem item(Long productId, String name, int quantity, String lineTotal) {
+        return InvoiceItem.builder()
+                .productId(productId)
+                .name(name)
+                .quantity(quantity)
+                .lineTotal(new BigDecimal(lineTotal))
+                .build();
+    }
+}